@@ -2,14 +2,18 @@ package com.library.flow.auth.controller;
 
 import com.library.flow.auth.dto.LoginRequest;
 import com.library.flow.auth.dto.LoginResponse;
+import com.library.flow.auth.dto.RefreshRequest;
 import com.library.flow.auth.service.AuthService;
 import com.library.flow.common.dto.AppResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -19,7 +23,22 @@ public class AuthController {
 
     @PostMapping("/login")
     @Operation(summary = "Login and receive JWT")
-    public AppResponse<LoginResponse> login(@Valid @RequestBody LoginRequest req) {
-        return AppResponse.ok(authService.login(req));
+    public CompletableFuture<AppResponse<LoginResponse>> login(@Valid @RequestBody LoginRequest req, HttpServletRequest http) {
+        return authService.login(req, http.getRemoteAddr()).thenApply(AppResponse::ok);
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Exchange a refresh token for a new access token and refresh token")
+    public AppResponse<LoginResponse> refresh(@Valid @RequestBody RefreshRequest req) {
+        return AppResponse.ok(authService.refresh(req));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Revoke the bearer token sent with this request, and optionally its refresh token")
+    public AppResponse<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @RequestBody(required = false) RefreshRequest req) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) throw new IllegalArgumentException("expected a Bearer token");
+        authService.logout(authorization.substring(7).trim(), req != null ? req.refreshToken() : null);
+        return AppResponse.ok(null);
     }
 }
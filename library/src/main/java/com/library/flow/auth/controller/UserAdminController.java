@@ -53,6 +53,14 @@ public class UserAdminController {
         return AppResponse.ok(null);
     }
 
+    @PostMapping("/{id}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Revoke every token issued to a user (ADMIN)")
+    public AppResponse<Void> revokeTokens(@PathVariable UUID id) {
+        service.revokeTokens(id);
+        return AppResponse.ok(null);
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Delete system user (ADMIN)")
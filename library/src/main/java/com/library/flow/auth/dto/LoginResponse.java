@@ -1,3 +1,3 @@
 package com.library.flow.auth.dto;
 
-public record LoginResponse(String token, String role) {}
+public record LoginResponse(String token, String role, String refreshToken) {}
@@ -0,0 +1,5 @@
+package com.library.flow.auth.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshRequest(@NotBlank String refreshToken) {}
@@ -1,8 +1,10 @@
 package com.library.flow.auth.entity;
 
 import com.library.flow.auth.model.Role;
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.util.UUID;
 
@@ -15,7 +17,7 @@ import java.util.UUID;
 public class AppUser {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue(strategy = GenerationType.UUID) @UuidGenerator(algorithm = UuidV7.class)
     private UUID id;
 
     @Column(nullable = false,unique = true)
@@ -33,4 +35,9 @@ public class AppUser {
     @Enumerated(EnumType.STRING)
     @Column(name = "role",nullable = false)
     private Role role;
+
+    /** Bumped whenever tokens issued so far must stop working (role change); copied into each token at login. */
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer securityStamp = 0;
 }
@@ -0,0 +1,49 @@
+package com.library.flow.auth.entity;
+
+import com.library.flow.common.util.UuidV7;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One opaque refresh token, stored only as its SHA-256. Each refresh marks the presented token used
+ * and issues the next one in the same {@code familyId}, so presenting a used token again means the
+ * chain was copied and the whole family is dropped.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_refresh_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_refresh_token_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID) @UuidGenerator(algorithm = UuidV7.class)
+    private UUID id;
+
+    @Column(nullable = false, length = 32)
+    private byte[] tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private AppUser user;
+
+    @Column(nullable = false)
+    private UUID familyId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    /** Set when the token is exchanged; a used token is never accepted again. */
+    private Instant usedAt;
+}
@@ -0,0 +1,23 @@
+package com.library.flow.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** A token id ({@code jti}) that must no longer authenticate; kept until the token would have expired anyway. */
+@Entity
+@Table(indexes = @Index(name = "idx_revoked_token_expires_at", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    private UUID jti;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
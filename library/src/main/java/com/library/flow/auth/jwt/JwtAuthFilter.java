@@ -1,6 +1,9 @@
 package com.library.flow.auth.jwt;
 
+import com.library.flow.auth.model.Role;
 import com.library.flow.auth.service.JwtService;
+import com.library.flow.auth.service.SecurityStampCache;
+import com.library.flow.auth.service.TokenRevocationService;
 import com.library.flow.auth.service.UserService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
@@ -11,8 +14,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -20,15 +27,38 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Authenticates requests carrying a bearer token. Every token's {@code stamp} is checked against
+ * {@link SecurityStampCache}, and tokens without one are refused, so revoking a user's tokens (which
+ * moves the stamp on) works whichever way the principal is built. In claims-only mode (the default)
+ * the principal and its authorities come from the verified {@code uid}/{@code role} claims, so no
+ * request touches the database; with {@code jwt.claimsOnly=false} the user is loaded by email. Tokens
+ * with a {@code jti} are also checked against the
+ * {@link TokenRevocationService} denylist, which for a token that was never revoked is one Bloom filter probe.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    private static final Map<Role, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
+
+    static {
+        for (Role role : Role.values()) AUTHORITIES.put(role, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+    }
+
     private final JwtService jwtService;
     private final UserService userService;
+    private final SecurityStampCache stamps;
+    private final TokenRevocationService revocations;
+
+    @Value("${jwt.claimsOnly:true}")
+    private boolean claimsOnly;
 
     @Override
     protected void doFilterInternal(HttpServletRequest req,
@@ -53,13 +83,36 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 return;
             }
 
-            UserDetails user = userService.loadUserByUsername(email);
+            String jti = claims.getId();
+            if (jti != null && revocations.isRevoked(UUID.fromString(jti))) {
+                log.debug("JWT rejected: revoked, jti={}", jti);
+                chain.doFilter(req, res);
+                return;
+            }
 
             Object uidClaim = claims.get("uid");
-            if (uidClaim != null) {
-                    req.setAttribute("uid", UUID.fromString(uidClaim.toString()));
+            UUID uid = uidClaim != null ? UUID.fromString(uidClaim.toString()) : null;
+            Object roleClaim = claims.get("role");
+            Object stampClaim = claims.get("stamp");
+
+            if (uid == null || !(stampClaim instanceof Number stamp) || !stamps.isCurrent(uid, stamp.intValue())) {
+                log.debug("JWT rejected: missing or stale security stamp, uid={}", uid);
+                chain.doFilter(req, res);
+                return;
             }
 
+            UserDetails user;
+            if (claimsOnly && roleClaim != null) {
+                user = User.withUsername(email)
+                        .password("")
+                        .authorities(AUTHORITIES.get(Role.valueOf(roleClaim.toString())))
+                        .build();
+            } else {
+                user = userService.loadUserByUsername(email);
+            }
+
+            req.setAttribute("uid", uid);
+
             UsernamePasswordAuthenticationToken auth =
                     new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
             auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
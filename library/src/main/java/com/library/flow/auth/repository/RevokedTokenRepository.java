@@ -0,0 +1,27 @@
+package com.library.flow.auth.repository;
+
+import com.library.flow.auth.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, UUID> {
+
+    /** Idempotent: revoking the same token twice is not an error. */
+    @Modifying
+    @Query(value = "insert into revoked_token (jti, expires_at) values (:jti, :expiresAt) on conflict (jti) do nothing",
+            nativeQuery = true)
+    int revoke(@Param("jti") UUID jti, @Param("expiresAt") Instant expiresAt);
+
+    @Query("select r.jti from RevokedToken r where r.expiresAt > :now")
+    List<UUID> findLiveIds(@Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
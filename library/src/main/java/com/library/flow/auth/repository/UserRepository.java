@@ -11,6 +11,10 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<AppUser, UUID> {
 
     Optional<AppUser> findByEmail(String email);
+
+    @Query("select u.securityStamp from AppUser u where u.id = :id")
+    Integer findSecurityStamp(@Param("id") UUID id);
+
     @Query("select (count(u) > 0) from AppUser u where lower(u.email) = lower(:email)")
     boolean existsByEmailIgnoreCase(@Param("email") String email);
 }
@@ -2,8 +2,11 @@ package com.library.flow.auth.service;
 
 import com.library.flow.auth.dto.LoginRequest;
 import com.library.flow.auth.dto.LoginResponse;
+import com.library.flow.auth.dto.RefreshRequest;
 import com.library.flow.auth.entity.AppUser;
 import com.library.flow.auth.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -11,8 +14,11 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -21,8 +27,16 @@ public class AuthService {
     private final AuthenticationManager authManager;
     private final JwtService jwt;
     private final UserRepository users;
+    private final TokenRevocationService revocations;
+    private final RefreshTokenService refreshTokens;
+    private final LoginAdmission admission;
 
-    public LoginResponse login(LoginRequest req) {
+    /** Checks the password on the {@link LoginAdmission} pool; completes with 401 or 429 failures as well. */
+    public CompletableFuture<LoginResponse> login(LoginRequest req, String clientIp) {
+        return admission.submit(req.email(), clientIp, () -> authenticate(req));
+    }
+
+    private LoginResponse authenticate(LoginRequest req) {
         Authentication auth = authManager.authenticate(
                 new UsernamePasswordAuthenticationToken(req.email(), req.password())
         );
@@ -31,12 +45,41 @@ public class AuthService {
         AppUser user = users.findByEmail(principal.getUsername())
                 .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
 
-        String token = jwt.generate(
+        return new LoginResponse(accessToken(user), user.getRole().name(), refreshTokens.issue(user));
+    }
+
+    /** Renews a session without the password: one locked lookup of the refresh token and one signature. */
+    public LoginResponse refresh(RefreshRequest req) {
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(req.refreshToken());
+        AppUser user = rotation.user();
+        return new LoginResponse(accessToken(user), user.getRole().name(), rotation.refreshToken());
+    }
+
+    /**
+     * Revokes the presented access token and, when given, the session of the refresh token; the user's
+     * other sessions stay valid.
+     */
+    @Transactional
+    public void logout(String bearerToken, String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwt.parse(bearerToken).getPayload();
+        } catch (JwtException ex) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        if (claims.getId() == null) {
+            throw new IllegalArgumentException("token has no id and cannot be revoked; it expires at " + claims.getExpiration().toInstant());
+        }
+        revocations.revoke(UUID.fromString(claims.getId()), claims.getExpiration().toInstant());
+        if (refreshToken != null) refreshTokens.revokeFamily(refreshToken);
+    }
+
+    private String accessToken(AppUser user) {
+        return jwt.generate(
                 user.getEmail(),
                 Map.of("uid", user.getId().toString(),
-                        "role", user.getRole().name())
+                        "role", user.getRole().name(),
+                        "stamp", user.getSecurityStamp())
         );
-
-        return new LoginResponse(token, user.getRole().name());
     }
 }
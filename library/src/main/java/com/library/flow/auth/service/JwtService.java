@@ -1,34 +1,59 @@
 package com.library.flow.auth.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.library.flow.common.util.UuidV7;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
 
+/**
+ * Issues and verifies HS256 tokens. Every token gets a unique {@code jti} so it can be revoked on its
+ * own (see {@link TokenRevocationService}).
+ * <p>
+ * A client presents the same token on every request for its whole lifetime, so verified tokens are
+ * kept in a bounded cache keyed by the token's SHA-256 (the token itself is never stored). A hit skips
+ * Base64 decoding, the HMAC check and claims parsing. Each entry expires exactly at the token's
+ * {@code exp}, so the cache never accepts a token the parser would reject as expired. Tokens that fail
+ * verification are not cached.
+ */
 @Service
 @Slf4j
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final long expirationMinutes;
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Cache<TokenDigest, Jws<Claims>> verified;
 
-    @Value("${jwt.expirationMinutes}")
-    private long expirationMinutes;
-
-    private SecretKey key;
-
-    @PostConstruct
-    void init() {
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.expirationMinutes}") long expirationMinutes,
+                      @Value("${jwt.verifiedCacheSize:10000}") long verifiedCacheSize,
+                      MeterRegistry registry) {
+        this.expirationMinutes = expirationMinutes;
         this.key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-        log.info("JWT key initialized. Expiration={} minutes", expirationMinutes);
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, verified, "verifiedTokens");
+        log.info("JWT key initialized. Expiration={} minutes, verifiedCacheSize={}", expirationMinutes, verifiedCacheSize);
     }
 
     public String generate(String subject, Map<String, Object> claims) {
@@ -36,6 +61,7 @@ public class JwtService {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .id(UuidV7.next().toString())
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(expirationMinutes * 60L)))
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -43,9 +69,47 @@ public class JwtService {
     }
 
     public Jws<Claims> parse(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token);
+        TokenDigest digest = TokenDigest.of(token);
+        Jws<Claims> jws = verified.getIfPresent(digest);
+        if (jws != null) return jws;
+        jws = parser.parseSignedClaims(token);
+        if (jws.getPayload().getExpiration() != null) verified.put(digest, jws);
+        return jws;
+    }
+
+    /** SHA-256 of a token as four longs: fixed size, cheap to compare, and collision resistant. */
+    private record TokenDigest(long a, long b, long c, long d) {
+
+        private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        static TokenDigest of(String token) {
+            ByteBuffer hash = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<TokenDigest, Jws<Claims>> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, Jws<Claims> jws, long currentTime) {
+            long millis = jws.getPayload().getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, millis) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, Jws<Claims> jws, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jws, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, Jws<Claims> jws, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
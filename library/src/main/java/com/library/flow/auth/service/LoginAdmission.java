@@ -0,0 +1,137 @@
+package com.library.flow.auth.service;
+
+import com.library.flow.common.error.custom.TooManyRequestsException;
+import com.library.flow.common.util.StripedTokenBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Keeps password checks off the request threads and puts a ceiling on how much CPU they can take.
+ * <p>
+ * Logins run on a small fixed pool ({@code library.login.threads}, half the cores by default) behind a
+ * bounded queue, and the servlet thread is released while they wait. Before anything is queued, the
+ * client address and the account each pay one token from a {@link StripedTokenBuckets}. A throttled
+ * attempt, a full queue, or a login that sat in the queue past {@code library.login.maxWaitMillis} is
+ * answered 429 at once, without hashing. A login storm therefore costs at most the pool's cores, and
+ * catalog and circulation requests keep their threads.
+ */
+@Service
+@Slf4j
+public class LoginAdmission {
+
+    private final ThreadPoolExecutor pool;
+    private final StripedTokenBuckets perIp;
+    private final StripedTokenBuckets perAccount;
+    private final long maxWaitNanos;
+    private final Timer waitTimer;
+    private final Counter saturated;
+    private final Counter ipThrottled;
+    private final Counter accountThrottled;
+    private final Counter expired;
+
+    public LoginAdmission(MeterRegistry registry,
+                          @Value("${library.login.threads:0}") int threads,
+                          @Value("${library.login.queueSize:64}") int queueSize,
+                          @Value("${library.login.maxWaitMillis:5000}") long maxWaitMillis,
+                          @Value("${library.login.stripes:65536}") int stripes,
+                          @Value("${library.login.perIp.capacity:20}") int ipCapacity,
+                          @Value("${library.login.perIp.refillMillis:3000}") long ipRefillMillis,
+                          @Value("${library.login.perAccount.capacity:5}") int accountCapacity,
+                          @Value("${library.login.perAccount.refillMillis:12000}") long accountRefillMillis) {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "login-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.perIp = new StripedTokenBuckets(stripes, ipCapacity, ipRefillMillis);
+        this.perAccount = new StripedTokenBuckets(stripes, accountCapacity, accountRefillMillis);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.waitTimer = Timer.builder("library.auth.login.wait")
+                .description("Time a login spent queued before its password was checked")
+                .register(registry);
+        Gauge.builder("library.auth.login.queue", pool, p -> p.getQueue().size())
+                .description("Logins waiting for a password-check thread")
+                .register(registry);
+        Gauge.builder("library.auth.login.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Logins currently checking a password")
+                .register(registry);
+        this.saturated = rejections(registry, "saturated");
+        this.ipThrottled = rejections(registry, "ip");
+        this.accountThrottled = rejections(registry, "account");
+        this.expired = rejections(registry, "expired");
+        log.info("Login pool ready: threads={}, queueSize={}", size, queueSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Runs {@code login} on the login pool once {@code clientIp} and {@code email} are within their
+     * limits; throws {@link TooManyRequestsException} straight away otherwise.
+     */
+    public <T> CompletableFuture<T> submit(String email, String clientIp, Supplier<T> login) {
+        long ipWait = perIp.tryAcquire(clientIp);
+        if (ipWait > 0) {
+            ipThrottled.increment();
+            log.debug("submit: throttled by address, clientIp={}", clientIp);
+            throw tooMany("Too many login attempts from this address", ipWait);
+        }
+        long accountWait = perAccount.tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+        if (accountWait > 0) {
+            accountThrottled.increment();
+            log.debug("submit: throttled by account, clientIp={}", clientIp);
+            throw tooMany("Too many login attempts for this account", accountWait);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                long waited = System.nanoTime() - queuedAt;
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxWaitNanos) {
+                    expired.increment();
+                    result.completeExceptionally(tooMany("Login service is busy", 1000));
+                    return;
+                }
+                try {
+                    result.complete(login.get());
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            saturated.increment();
+            throw tooMany("Login service is busy", 1000);
+        }
+        return result;
+    }
+
+    private static TooManyRequestsException tooMany(String message, long waitMillis) {
+        return new TooManyRequestsException(message, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)));
+    }
+
+    private static Counter rejections(MeterRegistry registry, String reason) {
+        return Counter.builder("library.auth.login.rejected")
+                .description("Login attempts answered 429 without checking the password")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
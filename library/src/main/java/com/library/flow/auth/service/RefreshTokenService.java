@@ -0,0 +1,126 @@
+package com.library.flow.auth.service;
+
+import com.library.flow.auth.entity.AppUser;
+import com.library.flow.auth.entity.RefreshToken;
+import com.library.flow.auth.repository.RefreshTokenRepository;
+import com.library.flow.common.util.UuidV7;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. A token is 256 random bits handed to the client once; only its
+ * SHA-256 is stored, so the table is useless to whoever reads it. Renewing a session is one locked
+ * lookup by that hash plus signing a new access token, instead of a BCrypt check of the password.
+ * <p>
+ * Every exchange marks the presented token used and issues its successor in the same family. A used
+ * token presented again means someone holds a copy of the chain, so the whole family is deleted and
+ * both the thief and the rightful client have to log in again.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository repo;
+    private final Duration ttl;
+    private final Counter rotationCounter;
+    private final Counter reuseCounter;
+
+    public RefreshTokenService(RefreshTokenRepository repo, MeterRegistry registry,
+                               @Value("${jwt.refreshTtl:P14D}") Duration ttl) {
+        this.repo = repo;
+        this.ttl = ttl;
+        this.rotationCounter = Counter.builder("library.auth.refresh.rotations")
+                .description("Refresh tokens exchanged for a new access token")
+                .register(registry);
+        this.reuseCounter = Counter.builder("library.auth.refresh.reuse")
+                .description("Used refresh tokens presented again; each one revokes its token family")
+                .register(registry);
+    }
+
+    /** The user a refresh token was exchanged for, and the refresh token that replaces it. */
+    public record Rotation(AppUser user, String refreshToken) {}
+
+    /** Starts a new token family for {@code user}; returns the token to hand to the client. */
+    @Transactional
+    public String issue(AppUser user) {
+        return issue(user, UuidV7.next());
+    }
+
+    /** Rejections must not roll back, or deleting a reused token's family would be undone. */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String token) {
+        RefreshToken current = repo.findForRotation(hash(token))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        if (current.getUsedAt() != null) {
+            int revoked = repo.deleteFamily(current.getFamilyId());
+            reuseCounter.increment();
+            log.warn("rotate: used refresh token presented again, family revoked, userId={}, familyId={}, tokens={}",
+                    current.getUser().getId(), current.getFamilyId(), revoked);
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        Instant now = Instant.now();
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new BadCredentialsException("Refresh token expired");
+        }
+        current.setUsedAt(now);
+        rotationCounter.increment();
+        return new Rotation(current.getUser(), issue(current.getUser(), current.getFamilyId()));
+    }
+
+    /** Ends the session the token belongs to; unknown tokens are ignored. */
+    @Transactional
+    public void revokeFamily(String token) {
+        repo.findForRotation(hash(token)).ifPresent(t -> repo.deleteFamily(t.getFamilyId()));
+    }
+
+    /** Call from inside the transaction that revokes the user's access or deletes the user. */
+    public void revokeAll(UUID userId) {
+        repo.deleteByUserId(userId);
+    }
+
+    @Scheduled(cron = "${jwt.refreshPurgeCron:0 45 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = repo.deleteExpired(Instant.now());
+        log.info("purgeExpired: purged={}", purged);
+    }
+
+    private String issue(AppUser user, UUID familyId) {
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String token = ENCODER.encodeToString(secret);
+        repo.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .user(user)
+                .familyId(familyId)
+                .expiresAt(Instant.now().plus(ttl))
+                .build());
+        return token;
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
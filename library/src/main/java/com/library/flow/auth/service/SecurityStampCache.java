@@ -0,0 +1,84 @@
+package com.library.flow.auth.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.library.flow.auth.repository.UserRepository;
+import com.library.flow.service.CacheInvalidationBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Current security stamp of each user, so claims-only authentication can tell whether a token is
+ * still valid without a database round trip per request.
+ * <p>
+ * Entries are refreshed in the background once they are half the TTL old and dropped at the TTL, so a
+ * busy user never waits for the database and a changed stamp is seen within the TTL even when no
+ * invalidation arrives. Changes made through {@link UserAdminService} also evict the entry right after
+ * commit here and, over the {@link CacheInvalidationBus}, on the other instances. Deleted users are
+ * cached as {@link #DELETED} so their tokens cost no query either.
+ */
+@Service
+@Slf4j
+public class SecurityStampCache {
+
+    static final String TOPIC = "securityStamps";
+    private static final int DELETED = -1;
+
+    private final UserRepository users;
+    private final CacheInvalidationBus bus;
+    private final LoadingCache<UUID, Integer> stamps;
+
+    public SecurityStampCache(UserRepository users, CacheInvalidationBus bus, MeterRegistry registry,
+                              @Value("${jwt.stampTtl:PT30S}") Duration ttl,
+                              @Value("${jwt.stampCacheSize:100000}") long maxSize) {
+        this.users = users;
+        this.bus = bus;
+        this.stamps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(ttl.dividedBy(2))
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(registry, stamps, "securityStamps");
+        bus.onInvalidate(TOPIC, ids -> {
+            if (ids == null) stamps.invalidateAll();
+            else stamps.invalidateAll(ids);
+        });
+    }
+
+    /** True while the user exists and still has the stamp the token was issued with. */
+    public boolean isCurrent(UUID userId, int stamp) {
+        Integer current = stamps.get(userId);
+        return current != null && current != DELETED && current == stamp;
+    }
+
+    /** Call from inside the transaction that changed the user's stamp or deleted the user. */
+    public void stampChanged(UUID userId) {
+        bus.publish(TOPIC, List.of(userId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stamps.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stamps.invalidate(userId);
+            }
+        });
+    }
+
+    private Integer load(UUID userId) {
+        Integer stamp = users.findSecurityStamp(userId);
+        log.debug("load: userId={}, stamp={}", userId, stamp);
+        return stamp != null ? stamp : DELETED;
+    }
+}
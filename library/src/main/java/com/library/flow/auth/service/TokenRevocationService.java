@@ -0,0 +1,166 @@
+package com.library.flow.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.flow.auth.repository.RevokedTokenRepository;
+import com.library.flow.common.util.UuidBloomFilter;
+import com.library.flow.service.CacheInvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Denylist of revoked token ids ({@code jti}), persisted in {@code revoked_token} and fronted by a
+ * {@link UuidBloomFilter} of the live entries.
+ * <p>
+ * Almost every request carries a token that was never revoked, and for those {@link #isRevoked} is one
+ * filter probe. Only filter hits (revoked tokens and the rare false positive) are confirmed against the
+ * table, and the answer is cached per token. Before the filter is loaded every check goes to the cache
+ * and the table, so nothing is let through while it loads. Revocations are added here after commit and
+ * on the other instances over the {@link CacheInvalidationBus}; after a bus resync the filter is rebuilt
+ * from the table. Rows are purged once their token has expired, and the purge also rebuilds the filter,
+ * since bits cannot be removed.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    static final String TOPIC = "revokedTokens";
+
+    private final RevokedTokenRepository repo;
+    private final CacheInvalidationBus bus;
+    private final TransactionTemplate tx;
+    private final ExecutorService loader;
+    private final Cache<UUID, Boolean> confirmed;
+    private final Counter tableChecks;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+
+    private volatile UuidBloomFilter filter;
+    /** Ids revoked while a rebuild is reading the table; guarded by {@code this}. */
+    private List<UUID> revokedDuringRebuild;
+
+    public TokenRevocationService(RevokedTokenRepository repo, CacheInvalidationBus bus,
+                                  PlatformTransactionManager transactionManager, MeterRegistry registry,
+                                  @Value("${jwt.revocation.expectedTokens:100000}") int expectedTokens,
+                                  @Value("${jwt.revocation.falsePositiveRate:0.001}") double falsePositiveRate,
+                                  @Value("${jwt.revocation.confirmedCacheSize:10000}") long confirmedCacheSize) {
+        this.repo = repo;
+        this.bus = bus;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.loader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "token-denylist-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(confirmedCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, confirmed, "revokedTokens");
+        this.tableChecks = Counter.builder("library.auth.revocation.table.checks")
+                .description("Token revocation checks that passed the Bloom filter and were answered from the denylist table")
+                .register(registry);
+        bus.onInvalidate(TOPIC, ids -> {
+            if (ids == null) {
+                confirmed.invalidateAll();
+                loader.execute(this::rebuild);
+            } else {
+                ids.forEach(this::remember);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loader.execute(this::rebuild);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    public boolean isRevoked(UUID jti) {
+        UuidBloomFilter current = filter;
+        if (current != null && !current.mightContain(jti)) return false;
+        return confirmed.get(jti, id -> {
+            tableChecks.increment();
+            return repo.existsById(id);
+        });
+    }
+
+    /** Call from inside a transaction; the token stops authenticating on every instance once it commits. */
+    public void revoke(UUID jti, Instant expiresAt) {
+        repo.revoke(jti, expiresAt);
+        bus.publish(TOPIC, List.of(jti));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember(jti);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember(jti);
+            }
+        });
+    }
+
+    @Scheduled(cron = "${jwt.revocation.purgeCron:0 15 * * * *}")
+    public void purgeExpired() {
+        Integer purged = tx.execute(status -> repo.deleteExpired(Instant.now()));
+        log.info("purgeExpired: purged={}", purged);
+        loader.execute(this::rebuild);
+    }
+
+    private synchronized void remember(UUID jti) {
+        UuidBloomFilter current = filter;
+        if (current != null) current.put(jti);
+        if (revokedDuringRebuild != null) revokedDuringRebuild.add(jti);
+        confirmed.put(jti, true);
+    }
+
+    private void rebuild() {
+        long begin = System.nanoTime();
+        try {
+            synchronized (this) {
+                revokedDuringRebuild = new ArrayList<>();
+            }
+            List<UUID> live = repo.findLiveIds(Instant.now());
+            UuidBloomFilter fresh = new UuidBloomFilter(Math.max(expectedTokens, live.size() * 2), falsePositiveRate);
+            live.forEach(fresh::put);
+            synchronized (this) {
+                revokedDuringRebuild.forEach(fresh::put);
+                revokedDuringRebuild = null;
+                filter = fresh;
+            }
+            log.info("Token denylist loaded: revoked={}, filterBits={}, tookMs={}",
+                    live.size(), fresh.bitCount(), (System.nanoTime() - begin) / 1_000_000);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                revokedDuringRebuild = null;
+            }
+            log.error("Token denylist load failed: reason={}", ex.getMessage(), ex);
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class UserAdminService {
 
     private final UserRepository repo;
     private final PasswordEncoder encoder;
+    private final SecurityStampCache stamps;
+    private final RefreshTokenService refreshTokens;
 
     @Transactional
     public UUID createUser(CreateUserDTO dto) {
@@ -40,12 +42,30 @@ public class UserAdminService {
         AppUser u = repo.findById(id).orElseThrow(() -> new jakarta.persistence.EntityNotFoundException("user"));
         if (dto.fullName() != null) u.setFullName(dto.fullName());
         if (dto.username() != null) u.setUsername(dto.username());
-        if (dto.role() != null) u.setRole(dto.role());
+        if (dto.role() != null && dto.role() != u.getRole()) {
+            u.setRole(dto.role());
+            u.setSecurityStamp(u.getSecurityStamp() + 1);
+            stamps.stampChanged(id);
+        }
+    }
+
+    /**
+     * Invalidates every access token issued to the user so far by moving their security stamp on, and
+     * drops their refresh tokens so no new ones can be minted.
+     */
+    @Transactional
+    public void revokeTokens(UUID id) {
+        AppUser u = repo.findById(id).orElseThrow(() -> new jakarta.persistence.EntityNotFoundException("user"));
+        u.setSecurityStamp(u.getSecurityStamp() + 1);
+        refreshTokens.revokeAll(id);
+        stamps.stampChanged(id);
     }
 
     @Transactional
     public void deleteById(UUID id) {
+        refreshTokens.revokeAll(id);
         repo.deleteById(id);
+        stamps.stampChanged(id);
     }
 
 
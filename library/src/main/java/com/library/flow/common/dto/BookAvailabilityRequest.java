@@ -0,0 +1,12 @@
+package com.library.flow.common.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BookAvailabilityRequest(
+        @NotEmpty @Size(max = 5000, message = "at most 5000 books per request") List<@NotNull UUID> bookIds
+) { }
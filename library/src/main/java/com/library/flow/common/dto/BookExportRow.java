@@ -0,0 +1,27 @@
+package com.library.flow.common.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One book as exported. {@code categories} are the names for reading; {@code categoryIds} are what
+ * the import expects, so an export can be fed back in.
+ */
+public record BookExportRow(
+        UUID id,
+        String title,
+        String isbn,
+        Integer publicationYear,
+        String language,
+        Integer edition,
+        String summary,
+        String coverImageUrl,
+        Instant createdAt,
+        Integer totalCopies,
+        Integer availableCopies,
+        String publisher,
+        List<String> authors,
+        List<String> categories,
+        List<UUID> categoryIds
+) {}
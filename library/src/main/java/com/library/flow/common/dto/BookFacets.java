@@ -0,0 +1,16 @@
+package com.library.flow.common.dto;
+
+import java.util.List;
+
+/**
+ * Facet counts for a {@link BookFilter}. {@code total} is the number of books matching the whole filter;
+ * each facet's counts apply every other facet's selection but not its own, so alternatives stay visible.
+ */
+public record BookFacets(
+        long total,
+        List<FacetCount> languages,
+        List<FacetCount> years,
+        List<FacetCount> publishers,
+        List<FacetCount> categories,
+        long tookMicros
+) {}
@@ -0,0 +1,34 @@
+package com.library.flow.common.dto;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Filter for the faceted book listing. Values within one facet are alternatives (any may match),
+ * facets are combined with AND; an empty set or a null bound means the facet is not filtered.
+ * A category matches books filed under it or under any of its subcategories.
+ */
+public record BookFilter(
+        Set<String> languages,
+        Integer yearFrom,
+        Integer yearTo,
+        Set<UUID> publisherIds,
+        Set<UUID> categoryIds
+) {
+    public BookFilter {
+        languages = languages != null ? Set.copyOf(languages) : Set.of();
+        publisherIds = publisherIds != null ? Set.copyOf(publisherIds) : Set.of();
+        categoryIds = categoryIds != null ? Set.copyOf(categoryIds) : Set.of();
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new IllegalArgumentException("yearFrom must not be after yearTo");
+        }
+    }
+
+    public boolean hasYearRange() {
+        return yearFrom != null || yearTo != null;
+    }
+
+    public boolean matchesYear(int year) {
+        return (yearFrom == null || year >= yearFrom) && (yearTo == null || year <= yearTo);
+    }
+}
@@ -0,0 +1,12 @@
+package com.library.flow.common.dto;
+
+import java.util.List;
+
+public record BookImportReport(
+        long rowsRead,
+        long imported,
+        long failed,
+        List<ImportRowError> errors,
+        boolean errorsTruncated,
+        long tookMs
+) {}
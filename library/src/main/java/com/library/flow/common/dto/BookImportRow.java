@@ -0,0 +1,23 @@
+package com.library.flow.common.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One catalog row of a bulk import. Publisher and authors are given by name and created on the fly;
+ * categories must already exist and are given by id.
+ */
+public record BookImportRow(
+        String title,
+        String isbn,
+        Integer publicationYear,
+        String language,
+        Integer edition,
+        String summary,
+        String coverImageUrl,
+        Integer totalCopies,
+        Integer availableCopies,
+        String publisher,
+        List<String> authors,
+        List<UUID> categoryIds
+) {}
@@ -0,0 +1,56 @@
+package com.library.flow.common.dto;
+
+import com.library.flow.entity.Book;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record BookListItem(
+        UUID id,
+        String title,
+        String isbn,
+        Integer publicationYear,
+        String language,
+        Integer edition,
+        String summary,
+        String coverImageUrl,
+        Instant createdAt,
+        Integer totalCopies,
+        Integer availableCopies,
+        Long version,
+        NamedRef publisher,
+        List<NamedRef> authors,
+        List<NamedRef> categories
+) {
+    public BookListItem withLiveState(BookLiveState live) {
+        return new BookListItem(id, title, isbn, publicationYear, language, edition, summary, coverImageUrl,
+                createdAt, totalCopies, live.availableCopies(), live.version(), publisher, authors, categories);
+    }
+
+    /**
+     * Copies the scalar columns of {@code book}; relations must be passed in already resolved
+     * so the book's lazy collections are never touched.
+     */
+    public static BookListItem of(Book book, List<NamedRef> authors, List<NamedRef> categories) {
+        NamedRef publisher = book.getPublisher() == null ? null
+                : new NamedRef(book.getPublisher().getId(), book.getPublisher().getName());
+        return new BookListItem(
+                book.getId(),
+                book.getTitle(),
+                book.getIsbn(),
+                book.getPublicationYear(),
+                book.getLanguage(),
+                book.getEdition(),
+                book.getSummary(),
+                book.getCoverImageUrl(),
+                book.getCreatedAt(),
+                book.getTotalCopies(),
+                book.getAvailableCopies(),
+                book.getVersion(),
+                publisher,
+                List.copyOf(authors),
+                List.copyOf(categories)
+        );
+    }
+}
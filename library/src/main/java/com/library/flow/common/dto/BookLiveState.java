@@ -0,0 +1,4 @@
+package com.library.flow.common.dto;
+
+/** The parts of a book that change with every loan, read from the row instead of the catalog cache. */
+public record BookLiveState(Integer availableCopies, Long version) {}
@@ -0,0 +1,8 @@
+package com.library.flow.common.dto;
+
+import java.util.List;
+
+/**
+ * {@code totalMatches} counts every book matching the query; {@code hits} holds the best-ranked ones.
+ */
+public record BookSearchResult(String query, int totalMatches, long tookMicros, List<BookSearchHit> hits) {}
@@ -0,0 +1,14 @@
+package com.library.flow.common.dto;
+
+import java.util.UUID;
+
+public record CheckoutItemResult(UUID bookId, boolean success, UUID transactionId, String error) {
+
+    public static CheckoutItemResult ok(UUID bookId, UUID transactionId) {
+        return new CheckoutItemResult(bookId, true, transactionId, null);
+    }
+
+    public static CheckoutItemResult failed(UUID bookId, String error) {
+        return new CheckoutItemResult(bookId, false, null, error);
+    }
+}
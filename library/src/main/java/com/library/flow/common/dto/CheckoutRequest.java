@@ -0,0 +1,16 @@
+package com.library.flow.common.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record CheckoutRequest(
+        @NotNull UUID memberId,
+        @NotEmpty @Size(max = 50, message = "cart must not exceed 50 books") List<@NotNull UUID> bookIds,
+        @Future(message = "dueAt must be in the future") Instant dueAt
+) { }
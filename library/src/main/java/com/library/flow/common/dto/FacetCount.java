@@ -0,0 +1,4 @@
+package com.library.flow.common.dto;
+
+/** One facet value with the number of books it would match; {@code label} is the display name for ids. */
+public record FacetCount(String value, String label, long count) {}
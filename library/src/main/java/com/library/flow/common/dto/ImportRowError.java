@@ -0,0 +1,3 @@
+package com.library.flow.common.dto;
+
+public record ImportRowError(long row, String message) {}
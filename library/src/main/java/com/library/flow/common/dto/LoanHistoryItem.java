@@ -0,0 +1,14 @@
+package com.library.flow.common.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record LoanHistoryItem(
+        UUID transactionId,
+        UUID bookId,
+        String bookTitle,
+        Instant borrowedAt,
+        Instant dueAt,
+        Instant returnedAt,
+        BorrowStatus status
+) {}
@@ -0,0 +1,6 @@
+package com.library.flow.common.dto;
+
+import java.util.UUID;
+
+/** A fuzzy lookup result; {@code distance} is the number of typos between the query and the name. */
+public record NameMatch(UUID id, String name, int distance) {}
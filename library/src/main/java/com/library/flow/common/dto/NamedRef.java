@@ -0,0 +1,5 @@
+package com.library.flow.common.dto;
+
+import java.util.UUID;
+
+public record NamedRef(UUID id, String name) {}
@@ -0,0 +1,27 @@
+package com.library.flow.common.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a keyset listing: the sort key of the last row plus its id as tie-breaker.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record PageCursor(String key, UUID id) {
+
+    public String encode() {
+        String raw = id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new PageCursor(raw.substring(sep + 1), UUID.fromString(raw.substring(0, sep)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+}
@@ -2,9 +2,13 @@ package com.library.flow.common.error;
 
 import com.library.flow.common.dto.AppResponse;
 import com.library.flow.common.error.custom.NotFoundException;
+import com.library.flow.common.error.custom.PreconditionFailedException;
+import com.library.flow.common.error.custom.ServiceUnavailableException;
+import com.library.flow.common.error.custom.TooManyRequestsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -69,6 +73,16 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<AppResponse<Void>> handleConcurrentUpdate(OptimisticLockingFailureException ex, HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                AppResponse.error(
+                        HttpStatus.CONFLICT.value(),
+                        "Modified concurrently, reload and retry"
+                )
+        );
+    }
+
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<AppResponse<Void>> handleBadCredentials(BadCredentialsException ex, HttpServletRequest req) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -91,6 +105,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(AppResponse.error(HttpStatus.NOT_FOUND.value(), ex.getMessage()));
     }
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<AppResponse<Void>> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(AppResponse.error(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage()));
+    }
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<AppResponse<Void>> handleUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(AppResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage()));
+    }
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<AppResponse<Void>> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(AppResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage()));
+    }
     @ExceptionHandler(Exception.class)
     public ResponseEntity<AppResponse<Void>> handleOther(Exception ex, HttpServletRequest req) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,8 @@
+package com.library.flow.common.error.custom;
+
+/** A conditional request (If-Match) named a version that is no longer current. */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
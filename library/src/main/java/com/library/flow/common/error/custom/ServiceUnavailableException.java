@@ -0,0 +1,7 @@
+package com.library.flow.common.error.custom;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.flow.common.util;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets for an unbounded key space (accounts, client addresses) in a fixed array of stripes.
+ * A key hashes to one stripe; each stripe is a single {@code long} holding the token count and the
+ * time of the last refill, updated with compare-and-set, so acquiring takes no lock and allocates
+ * nothing. Keys that share a stripe share its budget, which can only make the limit stricter, and
+ * with many more stripes than active keys that is rare. Nothing needs evicting: an idle stripe simply
+ * refills.
+ */
+public final class StripedTokenBuckets {
+
+    private static final int TOKEN_BITS = 16;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    private final AtomicLongArray stripes;
+    private final int mask;
+    private final int capacity;
+    private final long refillMillis;
+    private final long epoch = System.currentTimeMillis() - 1;
+    /** Random per instance, so nobody outside can pick keys that land on someone else's stripe. */
+    private final long seed = new SecureRandom().nextLong();
+
+    /** Each key may burst {@code capacity} times and then gets one more token every {@code refillMillis}. */
+    public StripedTokenBuckets(int stripes, int capacity, long refillMillis) {
+        if (capacity < 1 || capacity > TOKEN_MASK) throw new IllegalArgumentException("capacity must be between 1 and " + TOKEN_MASK);
+        if (refillMillis < 1) throw new IllegalArgumentException("refillMillis must be positive");
+        int size = Integer.highestOneBit(Math.max(16, stripes - 1)) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.refillMillis = refillMillis;
+    }
+
+    /** Takes one token from {@code key}'s bucket; returns 0 on success, otherwise the milliseconds until one is available. */
+    public long tryAcquire(String key) {
+        int stripe = stripe(key);
+        long now = System.currentTimeMillis() - epoch;
+        while (true) {
+            long state = stripes.get(stripe);
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            if (state == 0) {
+                last = now;
+                tokens = capacity;
+            }
+            long refills = (now - last) / refillMillis;
+            if (refills > 0) {
+                tokens = Math.min(capacity, tokens + refills);
+                last = tokens == capacity ? now : last + refills * refillMillis;
+            }
+            if (tokens == 0) return Math.max(1, last + refillMillis - now);
+            if (stripes.compareAndSet(stripe, state, last << TOKEN_BITS | (tokens - 1))) return 0;
+        }
+    }
+
+    private int stripe(String key) {
+        long x = seed;
+        for (int i = 0; i < key.length(); i++) x = (x ^ key.charAt(i)) * 0x100000001B3L;
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return (int) x & mask;
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.flow.common.util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over UUIDs: {@link #mightContain} never misses an added id and wrongly says
+ * yes for roughly the configured fraction of other ids. The bit count is a power of two and the probes
+ * come from double hashing of the two UUID halves, so a probe is a few multiplies and array reads with
+ * no allocation. Safe for concurrent adds and lookups; there is no removal, so callers rebuild it to
+ * forget ids.
+ */
+public final class UuidBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long mask;
+    private final int hashes;
+
+    public UuidBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long wanted = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        long bits = Math.max(64, Long.highestOneBit(Math.min(wanted, 1L << 36) - 1) << 1);
+        this.words = new AtomicLongArray((int) (bits >>> 6));
+        this.mask = bits - 1;
+        this.hashes = (int) Math.max(1, Math.min(16, Math.round((double) wanted / n * ln2)));
+    }
+
+    public void put(UUID id) {
+        long h1 = mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits() * 0x9E3779B97F4A7C15L);
+        long h2 = mix(id.getLeastSignificantBits() + 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & mask;
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            long current = words.get(word);
+            while ((current & flag) == 0 && !words.compareAndSet(word, current, current | flag)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(UUID id) {
+        long h1 = mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits() * 0x9E3779B97F4A7C15L);
+        long h2 = mix(id.getLeastSignificantBits() + 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return mask + 1;
+    }
+
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.flow.common.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing map from UUID to a non-negative int, stored in three primitive arrays
+ * (about 20 bytes per entry at the default load factor instead of ~100 for a boxed HashMap).
+ * Not thread-safe; callers guard it with their own lock.
+ */
+public final class UuidIntMap {
+
+    public static final int MISSING = -1;
+
+    private long[] hi;
+    private long[] lo;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public UuidIntMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(UUID key) {
+        long h = key.getMostSignificantBits(), l = key.getLeastSignificantBits();
+        for (int i = slot(h, l); values[i] != MISSING; i = (i + 1) & mask) {
+            if (hi[i] == h && lo[i] == l) return values[i];
+        }
+        return MISSING;
+    }
+
+    /** Associates {@code value} (which must be non-negative) with {@code key}; returns the previous value or {@link #MISSING}. */
+    public int put(UUID key, int value) {
+        if (value < 0) throw new IllegalArgumentException("value must be non-negative");
+        if ((size + 1) * 10 > values.length * 6) allocate(values.length << 1);
+        long h = key.getMostSignificantBits(), l = key.getLeastSignificantBits();
+        int i = slot(h, l);
+        for (; values[i] != MISSING; i = (i + 1) & mask) {
+            if (hi[i] == h && lo[i] == l) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        hi[i] = h;
+        lo[i] = l;
+        values[i] = value;
+        size++;
+        return MISSING;
+    }
+
+    /** Removes {@code key}; returns its value or {@link #MISSING}. Uses backward-shift deletion, so no tombstones pile up. */
+    public int remove(UUID key) {
+        long h = key.getMostSignificantBits(), l = key.getLeastSignificantBits();
+        int i = slot(h, l);
+        while (values[i] != MISSING && (hi[i] != h || lo[i] != l)) i = (i + 1) & mask;
+        if (values[i] == MISSING) return MISSING;
+        int removed = values[i];
+        values[i] = MISSING;
+        size--;
+        for (int j = (i + 1) & mask; values[j] != MISSING; j = (j + 1) & mask) {
+            int home = slot(hi[j], lo[j]);
+            boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                hi[i] = hi[j];
+                lo[i] = lo[j];
+                values[i] = values[j];
+                values[j] = MISSING;
+                i = j;
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        long[] oldHi = hi, oldLo = lo;
+        int[] oldValues = values;
+        hi = new long[capacity];
+        lo = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        size = 0;
+        if (oldValues == null) return;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == MISSING) continue;
+            int j = slot(oldHi[i], oldLo[i]);
+            while (values[j] != MISSING) j = (j + 1) & mask;
+            hi[j] = oldHi[i];
+            lo[j] = oldLo[i];
+            values[j] = oldValues[i];
+            size++;
+        }
+    }
+
+    private int slot(long h, long l) {
+        long x = h ^ (l * 0x9E3779B97F4A7C15L);
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        return (int) x & mask;
+    }
+}
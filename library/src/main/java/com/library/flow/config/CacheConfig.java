@@ -0,0 +1,76 @@
+package com.library.flow.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.common.dto.CategoryRef;
+import com.library.flow.common.dto.NamedRef;
+import com.library.flow.service.CatalogCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Catalog caches are Caffeine (W-TinyLFU admission) bounded by an estimated size in bytes rather than
+ * by entry count, so a few books with long summaries cannot crowd out the heap. The manager is
+ * transaction aware: evictions issued inside a transaction are applied only after it commits.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${library.cache.books.maxBytes:67108864}") long bookBytes,
+                                     @Value("${library.cache.refs.maxBytes:8388608}") long refBytes,
+                                     @Value("${library.cache.expireAfterWrite:PT30M}") Duration ttl) {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setAllowNullValues(false);
+        manager.registerCustomCache(CatalogCache.BOOKS, build(bookBytes, ttl));
+        manager.registerCustomCache(CatalogCache.AUTHORS, build(refBytes, ttl));
+        manager.registerCustomCache(CatalogCache.PUBLISHERS, build(refBytes, ttl));
+        manager.registerCustomCache(CatalogCache.CATEGORIES, build(refBytes, ttl));
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(long maxBytes, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(CacheConfig::estimateBytes)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /** Rough retained size: object headers plus two bytes per char of every string. */
+    private static int estimateBytes(Object key, Object value) {
+        int bytes = 64;
+        if (value instanceof BookListItem b) {
+            bytes += 128 + chars(b.title()) + chars(b.isbn()) + chars(b.language())
+                    + chars(b.summary()) + chars(b.coverImageUrl())
+                    + ref(b.publisher()) + refs(b.authors()) + refs(b.categories());
+        } else if (value instanceof NamedRef r) {
+            bytes += ref(r);
+        } else if (value instanceof CategoryRef c) {
+            bytes += 64 + chars(c.name());
+        }
+        return bytes;
+    }
+
+    private static int refs(List<NamedRef> refs) {
+        int bytes = 16;
+        for (NamedRef r : refs) bytes += ref(r);
+        return bytes;
+    }
+
+    private static int ref(NamedRef r) {
+        return r == null ? 0 : 48 + chars(r.name());
+    }
+
+    private static int chars(String s) {
+        return s == null ? 0 : 40 + 2 * s.length();
+    }
+}
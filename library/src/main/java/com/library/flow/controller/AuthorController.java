@@ -2,8 +2,11 @@ package com.library.flow.controller;
 
 import com.library.flow.common.dto.AppResponse;
 import com.library.flow.common.dto.CreateAuthorRequest;
+import com.library.flow.common.dto.NameMatch;
+import com.library.flow.common.dto.NamedRef;
 import com.library.flow.entity.Author;
 
+import com.library.flow.search.NameLookupService;
 import com.library.flow.service.AuthorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -25,6 +29,7 @@ import java.util.UUID;
 public class AuthorController {
 
     private final AuthorService service;
+    private final NameLookupService nameLookup;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
@@ -38,6 +43,23 @@ public class AuthorController {
         return AppResponse.ok(service.getBookAuthors(pageable));
     }
 
+    @GetMapping("/lookup")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Typo-tolerant author name lookup (closest first)")
+    public AppResponse<List<NameMatch>> lookupAuthors(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return AppResponse.ok(nameLookup.lookupAuthors(query, Math.max(1, Math.min(limit, 50))));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Get author")
+    public AppResponse<NamedRef> getAuthor(@PathVariable UUID id) {
+        return AppResponse.ok(service.getAuthor(id));
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
     public AppResponse<UUID> addAuthor(@Valid @RequestBody CreateAuthorRequest body) {
@@ -1,21 +1,53 @@
 package com.library.flow.controller;
 
 import com.library.flow.common.dto.AppResponse;
+import com.library.flow.common.dto.BookAvailability;
+import com.library.flow.common.dto.BookAvailabilityRequest;
+import com.library.flow.common.dto.BookFacets;
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.dto.BookImportReport;
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.common.dto.BookSearchResult;
 import com.library.flow.common.dto.CreateBookRequest;
+import com.library.flow.common.dto.CursorPage;
+import com.library.flow.common.dto.NameMatch;
+import com.library.flow.common.dto.NamedRef;
 import com.library.flow.common.dto.UpdateBookRequest;
 import com.library.flow.entity.Book;
+import com.library.flow.search.BookAvailabilityService;
+import com.library.flow.search.BookFacetService;
+import com.library.flow.search.BookSearchService;
+import com.library.flow.search.NameLookupService;
+import com.library.flow.service.BookExportService;
+import com.library.flow.service.BookImportService;
 import com.library.flow.service.BookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/books")
@@ -25,11 +57,17 @@ import java.util.UUID;
 public class BookController {
 
     private final BookService service;
+    private final BookImportService importService;
+    private final BookExportService exportService;
+    private final BookSearchService searchService;
+    private final NameLookupService nameLookup;
+    private final BookFacetService facetService;
+    private final BookAvailabilityService availabilityService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
     @Operation(summary = "List books (paging & sorting only)")
-    public AppResponse<Page<Book>> findAllBooks(
+    public AppResponse<Page<BookListItem>> findAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "title,asc") String sort
@@ -38,6 +76,90 @@ public class BookController {
         return AppResponse.ok(service.findAll(pageable));
     }
 
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "List books with a cursor (sort: title or createdAt)")
+    public AppResponse<CursorPage<BookListItem>> scrollBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "title") String sort
+    ) {
+        return AppResponse.ok(service.scroll(cursor, Math.max(1, Math.min(size, 500)), sort));
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Full-text search over title, summary, authors, publisher and ISBN (BM25, last word matches as prefix)")
+    public AppResponse<BookSearchResult> searchBooks(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return AppResponse.ok(searchService.search(query, Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/filter")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Books filtered by language, publication year range, publisher and category (keyset, title order)")
+    public AppResponse<CursorPage<BookListItem>> filterBooks(
+            @RequestParam(required = false) Set<String> language,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Set<UUID> publisherId,
+            @RequestParam(required = false) Set<UUID> categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        BookFilter filter = new BookFilter(language, yearFrom, yearTo, publisherId, categoryId);
+        return AppResponse.ok(service.filter(filter, cursor, Math.max(1, Math.min(size, 100))));
+    }
+
+    @GetMapping("/facets")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Facet counts for the same filter, computed in memory")
+    public AppResponse<BookFacets> facetCounts(
+            @RequestParam(required = false) Set<String> language,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Set<UUID> publisherId,
+            @RequestParam(required = false) Set<UUID> categoryId,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        BookFilter filter = new BookFilter(language, yearFrom, yearTo, publisherId, categoryId);
+        return AppResponse.ok(facetService.facets(filter, Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/lookup")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Typo-tolerant title lookup (closest first)")
+    public AppResponse<List<NameMatch>> lookupTitles(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return AppResponse.ok(nameLookup.lookupTitles(query, Math.max(1, Math.min(limit, 50))));
+    }
+
+    @PostMapping("/availability")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Available and total copies for many books at once, served from memory")
+    public AppResponse<List<BookAvailability>> availability(@Valid @RequestBody BookAvailabilityRequest body) {
+        return AppResponse.ok(availabilityService.availability(body.bookIds()));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Get book detail; strong ETag from the book version and the names it embeds, honours If-None-Match")
+    public ResponseEntity<AppResponse<BookListItem>> getBook(@PathVariable UUID id, WebRequest request) {
+        BookListItem book = service.findById(id);
+        String etag = etag(book);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(AppResponse.ok(book));
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
     public AppResponse<Book> addBook(@Valid @RequestBody CreateBookRequest body) {
@@ -45,12 +167,45 @@ public class BookController {
         return AppResponse.created(book);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    @Operation(summary = "Stream the catalog as NDJSON or CSV (optionally gzip, optionally only books created since)")
+    public void exportBooks(@RequestParam(defaultValue = "ndjson") String format,
+                            @RequestParam(required = false) Instant since,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) throw new IllegalArgumentException("format must be ndjson or csv");
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=books." + (csv ? "csv" : "ndjson"));
+        if (gzip) response.setHeader("Content-Encoding", "gzip");
+        try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024)
+                                     : new BufferedOutputStream(response.getOutputStream(), 64 * 1024)) {
+            exportService.export(out, csv, since);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    @Operation(summary = "Bulk import books from a streamed CSV or NDJSON body")
+    public AppResponse<BookImportReport> importBooks(HttpServletRequest request) throws IOException {
+        boolean ndjson = request.getContentType() != null && request.getContentType().startsWith("application/x-ndjson");
+        BookImportReport report = ndjson
+                ? importService.importNdjson(request.getInputStream())
+                : importService.importCsv(request.getInputStream());
+        return AppResponse.ok(report);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
-    public AppResponse<Book> updateBook(@PathVariable UUID id,
-                                        @Valid @RequestBody UpdateBookRequest body) {
-        Book updated = service.updateBook(id, body);
-        return AppResponse.ok(updated);
+    @Operation(summary = "Update book; with If-Match the update is refused (412) unless the ETag is still current")
+    public ResponseEntity<AppResponse<BookListItem>> updateBook(@PathVariable UUID id,
+                                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                @Valid @RequestBody UpdateBookRequest body) {
+        BookListItem updated = service.updateBook(id, body, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(etag(updated))
+                .body(AppResponse.ok(updated));
     }
 
 
@@ -62,6 +217,46 @@ public class BookController {
         return AppResponse.ok(null);
     }
 
+    /**
+     * {@code "<version>-<refs>"}. The version covers the book's own columns, loans included; renaming
+     * an author, publisher or category does not touch the book row, so {@code refs} is a checksum of
+     * the ids and names the detail embeds, taken in id order so it does not depend on how they were loaded.
+     */
+    private static String etag(BookListItem book) {
+        CRC32C refs = new CRC32C();
+        if (book.publisher() != null) checksum(refs, 'p', book.publisher());
+        for (NamedRef a : byId(book.authors())) checksum(refs, 'a', a);
+        for (NamedRef c : byId(book.categories())) checksum(refs, 'c', c);
+        return "\"" + book.version() + "-" + Long.toHexString(refs.getValue()) + "\"";
+    }
+
+    private static List<NamedRef> byId(List<NamedRef> refs) {
+        return refs.stream().sorted(Comparator.comparing(NamedRef::id)).toList();
+    }
+
+    private static void checksum(CRC32C crc, char kind, NamedRef ref) {
+        crc.update((kind + ":" + ref.id() + ":" + ref.name() + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The version named by a single strong If-Match tag; {@code null} when there is no condition
+     * (absent or {@code *}). Only the version part of the tag counts: an update conflicts with other
+     * writes to the book, not with renamed authors. Anything that cannot be one of our tags maps to
+     * -1, which never matches.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') return -1L;
+        String value = tag.substring(1, tag.length() - 1);
+        int dash = value.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? value : value.substring(0, dash));
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
     private Pageable buildPageable(int page, int size, String sort, String defaultField) {
         String field = defaultField;
         String directionRaw = "asc";
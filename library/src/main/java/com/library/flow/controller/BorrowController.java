@@ -1,7 +1,12 @@
 package com.library.flow.controller;
 
 import com.library.flow.common.dto.AppResponse;
+import com.library.flow.common.dto.CheckoutItemResult;
+import com.library.flow.common.dto.CheckoutRequest;
 import com.library.flow.common.dto.CreateBorrowRequest;
+import com.library.flow.common.dto.CursorPage;
+import com.library.flow.common.dto.LoanHistoryItem;
+import com.library.flow.service.BorrowCoalescer;
 import com.library.flow.service.BorrowService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -22,15 +28,32 @@ import java.util.UUID;
 public class BorrowController {
 
     private final BorrowService service;
+    private final BorrowCoalescer coalescer;
 
     @PostMapping("/borrow")
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
     @Operation(summary = "Borrow a book")
     public AppResponse<UUID> borrow(@Valid @RequestBody CreateBorrowRequest request) {
-        UUID id = service.borrow(request);
+        UUID id = coalescer.borrow(request);
         return AppResponse.created(id);
     }
 
+    @PostMapping("/checkout")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    @Operation(summary = "Borrow several books for one member (per-book result)")
+    public AppResponse<List<CheckoutItemResult>> checkout(@Valid @RequestBody CheckoutRequest request) {
+        return AppResponse.ok(service.checkout(request));
+    }
+
+    @GetMapping("/members/{memberId}/loans")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Loan history of a member, newest first (cursor paging)")
+    public AppResponse<CursorPage<LoanHistoryItem>> loanHistory(@PathVariable UUID memberId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        return AppResponse.ok(service.loanHistory(memberId, cursor, Math.max(1, Math.min(size, 100))));
+    }
+
     @PostMapping("/{txId}/return")
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
     @Operation(summary = "Return a borrowed book")
@@ -1,18 +1,28 @@
 package com.library.flow.controller;
 
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.library.flow.common.dto.AppResponse;
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.common.dto.CategoryRef;
+import com.library.flow.common.dto.CursorPage;
 import com.library.flow.entity.Category;
+import com.library.flow.service.BookService;
 import com.library.flow.service.CategoryService;
+import com.library.flow.service.CategoryTree;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -23,6 +33,7 @@ import java.util.UUID;
 public class CategoryController {
 
     private final CategoryService service;
+    private final BookService bookService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
@@ -36,11 +47,36 @@ public class CategoryController {
         return AppResponse.ok(service.getAllCategories(pageable));
     }
 
-    @GetMapping("/tree")
+    @GetMapping(value = "/tree", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
-    @Operation(summary = "Get category tree (roots with children)")
-    public AppResponse<List<Category>> getTree() {
-        return AppResponse.ok(service.getCategTree());
+    @Operation(summary = "Get category tree (roots with children); honours If-None-Match")
+    public ResponseEntity<AppResponse<RawValue>> getTree(WebRequest request) {
+        CategoryTree.Snapshot tree = service.getCategTree();
+        if (request.checkNotModified(tree.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tree.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(tree.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(AppResponse.ok(tree.data()));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Get category")
+    public AppResponse<CategoryRef> getCategory(@PathVariable UUID id) {
+        return AppResponse.ok(service.getCategory(id));
+    }
+
+    @GetMapping("/{id}/books")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "List books in a category and all of its subcategories (cursor paging)")
+    public AppResponse<CursorPage<BookListItem>> getBooksInTree(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return AppResponse.ok(bookService.findByCategoryTree(id, cursor, Math.max(1, Math.min(size, 500))));
     }
 
     @PostMapping
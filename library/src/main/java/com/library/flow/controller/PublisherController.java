@@ -1,7 +1,10 @@
 package com.library.flow.controller;
 
 import com.library.flow.common.dto.AppResponse;
+import com.library.flow.common.dto.NameMatch;
+import com.library.flow.common.dto.NamedRef;
 import com.library.flow.entity.Publisher;
+import com.library.flow.search.NameLookupService;
 import com.library.flow.service.PublisherService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,6 +14,7 @@ import org.springframework.data.domain.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -20,6 +24,7 @@ import java.util.UUID;
 public class PublisherController {
 
     private final PublisherService service;
+    private final NameLookupService nameLookup;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
@@ -33,6 +38,23 @@ public class PublisherController {
         return AppResponse.ok(service.getPublishers(pageable));
     }
 
+    @GetMapping("/lookup")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Typo-tolerant publisher name lookup (closest first)")
+    public AppResponse<List<NameMatch>> lookupPublishers(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return AppResponse.ok(nameLookup.lookupPublishers(query, Math.max(1, Math.min(limit, 50))));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','STAFF')")
+    @Operation(summary = "Get publisher")
+    public AppResponse<NamedRef> getPublisher(@PathVariable UUID id) {
+        return AppResponse.ok(service.getPublisher(id));
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
     @Operation(summary = "Create publisher (entity body)")
@@ -1,11 +1,14 @@
 package com.library.flow.entity;
 
 
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.util.UUID;
 
@@ -17,9 +20,13 @@ import java.util.UUID;
 @Builder
 public class Author {
     @Id
-    @GeneratedValue
+    @GeneratedValue @UuidGenerator(algorithm = UuidV7.class)
     private UUID id;
 
+    @Version
+    @Column(nullable=false, columnDefinition="bigint default 0")
+    private Long version;
+
     @Column(nullable=false, unique=true)
     private String name;
 }
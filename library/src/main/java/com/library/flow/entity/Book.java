@@ -1,18 +1,32 @@
 package com.library.flow.entity;
 
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 import java.time.Instant;
 import java.util.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_title_id", columnList = "title, id"),
+        @Index(name = "idx_book_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_book_language_title_id", columnList = "language, title, id"),
+        @Index(name = "idx_book_publisher_title_id", columnList = "publisher_id, title, id"),
+        @Index(name = "idx_book_year_title_id", columnList = "publicationYear, title, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Book {
-    @Id @GeneratedValue private UUID id;
+    @Id @GeneratedValue @UuidGenerator(algorithm = UuidV7.class) private UUID id;
+
+    /** Bumped by every write to the row, loans included; served as the book's ETag. */
+    @Version
+    @Column(nullable=false, columnDefinition="bigint default 0")
+    private Long version;
 
     @Column(nullable=false, length=240)
     private String title;
@@ -50,7 +64,8 @@ public class Book {
     @ManyToMany
     @JoinTable(name="book_category",
             joinColumns=@JoinColumn(name="book_id"),
-            inverseJoinColumns=@JoinColumn(name="category_id"))
+            inverseJoinColumns=@JoinColumn(name="category_id"),
+            indexes=@Index(name="idx_book_category_category_book", columnList="category_id, book_id"))
     private Set<Category> categories;
 
 
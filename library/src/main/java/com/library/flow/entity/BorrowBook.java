@@ -2,12 +2,19 @@ package com.library.flow.entity;
 
 
 import com.library.flow.common.dto.BorrowStatus;
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_borrow_book_status_id", columnList = "status, id"),
+        @Index(name = "idx_borrow_book_member_status", columnList = "member_id, status"),
+        @Index(name = "idx_borrow_book_member_borrowed", columnList = "member_id, borrowedAt, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +23,7 @@ import java.util.UUID;
 public class BorrowBook {
 
     @Id
-    @GeneratedValue private UUID id;
+    @GeneratedValue @UuidGenerator(algorithm = UuidV7.class) private UUID id;
 
     @Column(nullable=false)
     private Instant borrowedAt = Instant.now();
@@ -1,8 +1,10 @@
 package com.library.flow.entity;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,9 +19,13 @@ import java.util.UUID;
 public class Category {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue @UuidGenerator(algorithm = UuidV7.class)
     private UUID id;
 
+    @Version
+    @Column(nullable=false, columnDefinition="bigint default 0")
+    private Long version;
+
     @Column(nullable=false, length=120)
     private String name;
 
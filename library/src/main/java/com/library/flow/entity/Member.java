@@ -1,7 +1,9 @@
 package com.library.flow.entity;
 
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -13,7 +15,7 @@ import java.util.UUID;
 @Builder
 public class Member {
     @Id
-    @GeneratedValue
+    @GeneratedValue @UuidGenerator(algorithm = UuidV7.class)
     private UUID id;
     @Column(nullable=false)
     private String fullName;
@@ -23,4 +25,9 @@ public class Member {
 
     @Column(nullable=false)
     private Instant createdAt = Instant.now();
+
+    /** Active (OPEN or OVERDUE) loans, kept in step with borrow/return. */
+    @Builder.Default
+    @Column(nullable=false, columnDefinition="integer default 0")
+    private Integer openLoanCount = 0;
 }
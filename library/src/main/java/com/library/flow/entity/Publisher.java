@@ -1,7 +1,9 @@
 package com.library.flow.entity;
 
+import com.library.flow.common.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 import java.util.UUID;
 
 @Entity
@@ -12,9 +14,13 @@ import java.util.UUID;
 @Builder
 public class Publisher {
     @Id
-    @GeneratedValue
+    @GeneratedValue @UuidGenerator(algorithm = UuidV7.class)
     private UUID id;
 
+    @Version
+    @Column(nullable=false, columnDefinition="bigint default 0")
+    private Long version;
+
     @Column(nullable=false, unique=true)
     private String name;
 }
@@ -0,0 +1,16 @@
+package com.library.flow.repository;
+
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.dto.PageCursor;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface BookFilterRepository {
+
+    /**
+     * Ids of books matching {@code filter} in (title, id) order, starting after {@code after} when given.
+     * Only the filtered columns appear in the statement, so each combination can use its own index.
+     */
+    List<UUID> findIdsMatching(BookFilter filter, PageCursor after, int limit);
+}
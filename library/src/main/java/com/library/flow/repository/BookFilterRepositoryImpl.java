@@ -0,0 +1,64 @@
+package com.library.flow.repository;
+
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.dto.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the statement as HQL text rather than with the Criteria API, which has no row-value
+ * comparison; the cursor predicate must be {@code (title, id) > (?, ?)} for Postgres to turn it into
+ * an index range.
+ */
+@RequiredArgsConstructor
+class BookFilterRepositoryImpl implements BookFilterRepository {
+
+    private final EntityManager em;
+
+    @Override
+    public List<UUID> findIdsMatching(BookFilter filter, PageCursor after, int limit) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        if (!filter.languages().isEmpty()) {
+            where.add("b.language in :languages");
+            params.put("languages", filter.languages());
+        }
+        if (filter.yearFrom() != null) {
+            where.add("b.publicationYear >= :yearFrom");
+            params.put("yearFrom", filter.yearFrom());
+        }
+        if (filter.yearTo() != null) {
+            where.add("b.publicationYear <= :yearTo");
+            params.put("yearTo", filter.yearTo());
+        }
+        if (!filter.publisherIds().isEmpty()) {
+            where.add("b.publisher.id in :publisherIds");
+            params.put("publisherIds", filter.publisherIds());
+        }
+        if (!filter.categoryIds().isEmpty()) {
+            // filed under a selected category or anywhere below it
+            where.add("exists (select 1 from b.categories c, CategoryClosure cc" +
+                    " where cc.descendantId = c.id and cc.ancestorId in :categoryIds)");
+            params.put("categoryIds", filter.categoryIds());
+        }
+        if (after != null) {
+            where.add("(b.title, b.id) > (:afterTitle, :afterId)");
+            params.put("afterTitle", after.key());
+            params.put("afterId", after.id());
+        }
+        String hql = "select b.id from Book b"
+                + (where.isEmpty() ? "" : " where " + String.join(" and ", where))
+                + " order by b.title, b.id";
+
+        TypedQuery<UUID> query = em.createQuery(hql, UUID.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -1,19 +1,122 @@
 package com.library.flow.repository;
 
+import com.library.flow.common.dto.BookLiveState;
 import com.library.flow.entity.Book;
-import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
-public interface BookRepository extends JpaRepository<Book, UUID> {
+/**
+ * Every statement here that changes copies also bumps {@code version}, so a book's ETag follows its
+ * availability and an If-Match update cannot overwrite a loan it has not seen.
+ */
+public interface BookRepository extends JpaRepository<Book, UUID>, BookFilterRepository {
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("select b from Book b where b.id = :id")
-    Book findByIdForUpdate(@Param("id") UUID id);
+    /**
+     * Takes one copy off the shelf in a single guarded statement.
+     * Returns 0 when the book does not exist or has no copies left, so callers never oversell.
+     */
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies - 1, b.version = b.version + 1 where b.id = :id and b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("id") UUID id);
+
+    /**
+     * Puts one copy back, never going above totalCopies.
+     */
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies + 1, b.version = b.version + 1 where b.id = :id and b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(@Param("id") UUID id);
+
+    /**
+     * Takes up to {@code requested} copies in one statement and returns how many were actually granted,
+     * or {@code null} when the book does not exist.
+     */
+    @Query(value = "with cur as (select id, available_copies from book where id = :id for update) " +
+            "update book b set available_copies = cur.available_copies - least(cur.available_copies, :requested), " +
+            "version = b.version + 1 " +
+            "from cur where b.id = cur.id " +
+            "returning least(cur.available_copies, :requested)", nativeQuery = true)
+    Integer reserveCopies(@Param("id") UUID id, @Param("requested") int requested);
+
+    /**
+     * Takes one copy of each listed book in a single statement. Rows are locked in id order so two
+     * carts sharing books cannot deadlock. Returns the ids that actually got a copy.
+     */
+    @Query(value = "with locked as (select id from book where id in (:ids) and available_copies > 0 order by id for update) " +
+            "update book b set available_copies = b.available_copies - 1, version = b.version + 1 " +
+            "from locked where b.id = locked.id and b.available_copies > 0 " +
+            "returning b.id", nativeQuery = true)
+    List<UUID> reserveOneCopyEach(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Puts back one copy of each listed book, never going above totalCopies. Meant for copies the
+     * same transaction took with {@link #reserveOneCopyEach}, whose row locks it already holds.
+     */
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies + 1, b.version = b.version + 1 " +
+            "where b.id in :ids and b.availableCopies < b.totalCopies")
+    int releaseOneCopyEach(@Param("ids") Collection<UUID> ids);
+
+    @Query("select b.id from Book b where b.id in :ids")
+    Set<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("select new com.library.flow.common.dto.BookLiveState(b.availableCopies, b.version) from Book b where b.id = :id")
+    BookLiveState findLiveState(@Param("id") UUID id);
+
+    @Query("select b.id from Book b join b.authors a where a.id = :authorId")
+    List<UUID> findIdsByAuthorId(@Param("authorId") UUID authorId);
+
+    @Query("select b.id from Book b where b.publisher.id = :publisherId")
+    List<UUID> findIdsByPublisherId(@Param("publisherId") UUID publisherId);
+
+    @Query("select b.id from Book b join b.categories c where c.id = :categoryId")
+    List<UUID> findIdsByCategoryId(@Param("categoryId") UUID categoryId);
+
+    /**
+     * Books in {@code categoryId} or any of its descendants, in id order after {@code after}.
+     * Driven from the subtree rather than from {@code book}: the closure primary key lists the
+     * descendant categories and {@code idx_book_category_category_book} their books from {@code after}
+     * on, so a small subtree costs the same in any size of catalog. A book filed under two categories
+     * of the subtree is counted once.
+     */
+    @Query(value = "select distinct bc.book_id from category_closure cc " +
+            "join book_category bc on bc.category_id = cc.descendant_id " +
+            "where cc.ancestor_id = :categoryId and bc.book_id > :after " +
+            "order by bc.book_id limit :limit", nativeQuery = true)
+    List<UUID> findIdsInCategoryTree(@Param("categoryId") UUID categoryId, @Param("after") UUID after,
+                                     @Param("limit") int limit);
+
+    @Query("select b.id from Book b order by b.title, b.id")
+    List<UUID> findFirstIdsByTitle(Limit limit);
+
+    @Query("select b.id from Book b where (b.title, b.id) > (:title, :id) order by b.title, b.id")
+    List<UUID> findIdsAfterTitle(@Param("title") String title, @Param("id") UUID id, Limit limit);
+
+    @Query("select b.id from Book b order by b.createdAt, b.id")
+    List<UUID> findFirstIdsByCreatedAt(Limit limit);
+
+    @Query("select b.id from Book b where (b.createdAt, b.id) > (:createdAt, :id) order by b.createdAt, b.id")
+    List<UUID> findIdsAfterCreatedAt(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query(value = "select b.id from Book b", countQuery = "select count(b) from Book b")
+    Page<UUID> findPageOfIds(Pageable pageable);
+
+    @Query("select b from Book b left join fetch b.publisher where b.id in :ids")
+    List<Book> findAllWithPublisherByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("select b.id, a.id, a.name from Book b join b.authors a where b.id in :ids")
+    List<Object[]> findAuthorRefs(@Param("ids") Collection<UUID> ids);
+
+    @Query("select b.id, c.id, c.name from Book b join b.categories c where b.id in :ids")
+    List<Object[]> findCategoryRefs(@Param("ids") Collection<UUID> ids);
 }
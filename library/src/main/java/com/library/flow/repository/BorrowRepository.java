@@ -1,15 +1,68 @@
 package com.library.flow.repository;
 
 import com.library.flow.common.dto.BorrowStatus;
+import com.library.flow.common.dto.LoanHistoryItem;
 import com.library.flow.entity.BorrowBook;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 public interface BorrowRepository extends JpaRepository<BorrowBook, UUID> {
 
-    int countByMember_IdAndStatus(UUID memberId, BorrowStatus status);
     boolean existsByMember_IdAndBook_IdAndStatusIn(UUID memberId, UUID bookId, Set<BorrowStatus> statuses);
 
+    @Query("select t.member.id from BorrowBook t " +
+            "where t.book.id = :bookId and t.member.id in :memberIds and t.status in :statuses")
+    Set<UUID> findMemberIdsWithActiveBorrow(@Param("bookId") UUID bookId,
+                                            @Param("memberIds") Collection<UUID> memberIds,
+                                            @Param("statuses") Set<BorrowStatus> statuses);
+
+    @Query("select t.book.id from BorrowBook t " +
+            "where t.member.id = :memberId and t.book.id in :bookIds and t.status in :statuses")
+    Set<UUID> findBookIdsWithActiveBorrow(@Param("memberId") UUID memberId,
+                                          @Param("bookIds") Collection<UUID> bookIds,
+                                          @Param("statuses") Set<BorrowStatus> statuses);
+
+    /**
+     * Closes a loan only if it is still active, so two concurrent returns cannot both put the copy back.
+     */
+    @Modifying
+    @Query("update BorrowBook t set t.status = com.library.flow.common.dto.BorrowStatus.RETURNED, t.returnedAt = :returnedAt " +
+            "where t.id = :id and t.status <> com.library.flow.common.dto.BorrowStatus.RETURNED")
+    int markReturned(@Param("id") UUID id, @Param("returnedAt") Instant returnedAt);
+
+    /**
+     * Upper id of the next overdue chunk after {@code after}, or {@code null} when fewer than
+     * {@code skip + 1} overdue loans remain.
+     */
+    @Query(value = "select id from borrow_book where status = 'OPEN' and due_at < :now and id > :after " +
+            "order by id offset :skip limit 1", nativeQuery = true)
+    UUID findOverdueChunkEnd(@Param("after") UUID after, @Param("now") Instant now, @Param("skip") int skip);
+
+    @Modifying
+    @Query(value = "update borrow_book set status = 'OVERDUE' " +
+            "where status = 'OPEN' and due_at < :now and id > :after and id <= :upTo", nativeQuery = true)
+    int markOverdueInRange(@Param("after") UUID after, @Param("upTo") UUID upTo, @Param("now") Instant now);
+
+    @Query("select new com.library.flow.common.dto.LoanHistoryItem(t.id, b.id, b.title, t.borrowedAt, t.dueAt, t.returnedAt, t.status) " +
+            "from BorrowBook t join t.book b where t.member.id = :memberId " +
+            "order by t.borrowedAt desc, t.id desc")
+    List<LoanHistoryItem> findFirstLoansOfMember(@Param("memberId") UUID memberId, Limit limit);
+
+    @Query("select new com.library.flow.common.dto.LoanHistoryItem(t.id, b.id, b.title, t.borrowedAt, t.dueAt, t.returnedAt, t.status) " +
+            "from BorrowBook t join t.book b where t.member.id = :memberId " +
+            "and (t.borrowedAt, t.id) < (:borrowedAt, :id) " +
+            "order by t.borrowedAt desc, t.id desc")
+    List<LoanHistoryItem> findLoansOfMemberBefore(@Param("memberId") UUID memberId,
+                                                  @Param("borrowedAt") Instant borrowedAt,
+                                                  @Param("id") UUID id,
+                                                  Limit limit);
 }
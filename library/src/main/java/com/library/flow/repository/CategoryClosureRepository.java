@@ -0,0 +1,78 @@
+package com.library.flow.repository;
+
+import com.library.flow.entity.CategoryClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosure.Key> {
+
+    /**
+     * Serializes structural changes to the hierarchy until the transaction ends, so two concurrent
+     * moves cannot each pass the cycle check and together form a loop.
+     */
+    @Query(value = "select count(*) from (select pg_advisory_xact_lock(hashtext('category_closure'))) l", nativeQuery = true)
+    long lockHierarchy();
+
+    @Query(value = "select exists(select 1 from category_closure where ancestor_id = :ancestorId and descendant_id = :descendantId)",
+            nativeQuery = true)
+    boolean isAncestor(@Param("ancestorId") UUID ancestorId, @Param("descendantId") UUID descendantId);
+
+    @Modifying
+    @Query(value = "insert into category_closure (ancestor_id, descendant_id, depth) values (:id, :id, 0)", nativeQuery = true)
+    int insertRoot(@Param("id") UUID id);
+
+    /** Links a new leaf to itself and to {@code parentId} and every ancestor of it. */
+    @Modifying
+    @Query(value = "insert into category_closure (ancestor_id, descendant_id, depth) " +
+            "select ancestor_id, :id, depth + 1 from category_closure where descendant_id = :parentId " +
+            "union all select :id, :id, 0", nativeQuery = true)
+    int insertLeaf(@Param("id") UUID id, @Param("parentId") UUID parentId);
+
+    /** Cuts the subtree rooted at {@code id} off from all of its current ancestors. */
+    @Modifying
+    @Query(value = "delete from category_closure " +
+            "where descendant_id in (select descendant_id from category_closure where ancestor_id = :id) " +
+            "and ancestor_id not in (select descendant_id from category_closure where ancestor_id = :id)",
+            nativeQuery = true)
+    int detachSubtree(@Param("id") UUID id);
+
+    /** Hangs the (detached) subtree rooted at {@code id} under {@code parentId} and all of its ancestors. */
+    @Modifying
+    @Query(value = "insert into category_closure (ancestor_id, descendant_id, depth) " +
+            "select up.ancestor_id, down.descendant_id, up.depth + down.depth + 1 " +
+            "from category_closure up cross join category_closure down " +
+            "where up.descendant_id = :parentId and down.ancestor_id = :id", nativeQuery = true)
+    int attachSubtree(@Param("id") UUID id, @Param("parentId") UUID parentId);
+
+    @Modifying
+    @Query(value = "delete from category_closure where ancestor_id = :id or descendant_id = :id", nativeQuery = true)
+    int deleteCategory(@Param("id") UUID id);
+
+    @Query(value = "select count(*) from category c where not exists " +
+            "(select 1 from category_closure cc where cc.ancestor_id = c.id and cc.descendant_id = c.id)",
+            nativeQuery = true)
+    long countCategoriesWithoutClosure();
+
+    @Modifying
+    @Query(value = "delete from category_closure", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Recomputes every row from the {@code parent_id} pointers. Depth is capped so legacy data that
+     * already contains a loop cannot make the walk run forever.
+     */
+    @Modifying
+    @Query(value = "insert into category_closure (ancestor_id, descendant_id, depth) " +
+            "with recursive walk (ancestor_id, descendant_id, depth) as ( " +
+            "  select id, id, 0 from category " +
+            "  union all " +
+            "  select w.ancestor_id, c.id, w.depth + 1 from walk w join category c on c.parent_id = w.descendant_id " +
+            "  where w.depth < :maxDepth " +
+            ") select ancestor_id, descendant_id, min(depth) from walk group by ancestor_id, descendant_id",
+            nativeQuery = true)
+    int rebuildFromParents(@Param("maxDepth") int maxDepth);
+}
@@ -1,10 +1,16 @@
 package com.library.flow.repository;
 
+import com.library.flow.common.dto.CategoryRef;
 import com.library.flow.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.UUID;
 
 public interface CategoryRepository extends JpaRepository<Category, UUID> {
-    boolean existsByParent_Id(UUID parentId);}
+    boolean existsByParent_Id(UUID parentId);
+
+    @Query("select new com.library.flow.common.dto.CategoryRef(c.id, c.name, c.parent.id) from Category c")
+    List<CategoryRef> findAllRefs();
+}
@@ -2,10 +2,78 @@ package com.library.flow.repository;
 
 
 import com.library.flow.entity.Member;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public interface MemberRepository extends JpaRepository<Member, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Member m where m.id = :id")
+    Member findByIdForUpdate(@Param("id") UUID id);
+
+    @Query("select m.id from Member m where m.id in :ids")
+    Set<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Claims one loan slot if the member is under {@code max}. Returns 0 when the member
+     * does not exist or is already at the limit.
+     */
+    @Modifying
+    @Query("update Member m set m.openLoanCount = m.openLoanCount + 1 where m.id = :id and m.openLoanCount < :max")
+    int incrementOpenLoans(@Param("id") UUID id, @Param("max") int max);
+
+    @Modifying
+    @Query("update Member m set m.openLoanCount = m.openLoanCount - 1 where m.id = :id and m.openLoanCount > 0")
+    int decrementOpenLoans(@Param("id") UUID id);
+
+    /**
+     * Claims one loan slot for each listed member still under {@code max}, locking rows in id order.
+     * Returns the members that got a slot.
+     */
+    @Query(value = "with locked as (select id from member where id in (:ids) and open_loan_count < :max order by id for update) " +
+            "update member m set open_loan_count = m.open_loan_count + 1 " +
+            "from locked where m.id = locked.id and m.open_loan_count < :max " +
+            "returning m.id", nativeQuery = true)
+    List<UUID> claimLoanSlots(@Param("ids") Collection<UUID> ids, @Param("max") int max);
+
+    @Modifying
+    @Query("update Member m set m.openLoanCount = m.openLoanCount - 1 where m.id in :ids and m.openLoanCount > 0")
+    int releaseLoanSlots(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * True when some member with active loans still has a zero openLoanCount, which is the state a
+     * database is in right after the counter column was added and before it was ever backfilled.
+     */
+    @Query(value = "select exists (select 1 from member m where m.open_loan_count = 0 and exists " +
+            "(select 1 from borrow_book t where t.member_id = m.id and t.status in ('OPEN', 'OVERDUE')))", nativeQuery = true)
+    boolean hasUncountedOpenLoans();
+
+    /**
+     * Upper id of the next reconciliation chunk after {@code after}, or {@code null} on the last chunk.
+     */
+    @Query(value = "select id from member where id > :after order by id offset :skip limit 1", nativeQuery = true)
+    UUID findChunkEnd(@Param("after") UUID after, @Param("skip") int skip);
+
+    @Query(value = "select id from member where id > :after and id <= :upTo order by id for update", nativeQuery = true)
+    List<UUID> lockRange(@Param("after") UUID after, @Param("upTo") UUID upTo);
+
+    /**
+     * Rewrites openLoanCount from borrow_book for members in (after, upTo] and returns the ids that had drifted.
+     */
+    @Query(value = "update member m set open_loan_count = a.actual " +
+            "from (select m2.id, (select count(*) from borrow_book t where t.member_id = m2.id " +
+            "      and t.status in ('OPEN', 'OVERDUE')) as actual " +
+            "      from member m2 where m2.id > :after and m2.id <= :upTo) a " +
+            "where m.id = a.id and m.open_loan_count <> a.actual " +
+            "returning m.id", nativeQuery = true)
+    List<UUID> reconcileOpenLoans(@Param("after") UUID after, @Param("upTo") UUID upTo);
 }
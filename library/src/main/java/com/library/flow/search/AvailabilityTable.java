@@ -0,0 +1,93 @@
+package com.library.flow.search;
+
+import com.library.flow.common.util.UuidIntMap;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Available and total copies of every book, kept off the entity in two {@code int[]} columns addressed
+ * through a {@link UuidIntMap}: about 28 bytes per book and no objects per entry. A deleted book's slot
+ * is reused by the next insert.
+ */
+final class AvailabilityTable {
+
+    /** Receives the copies of each known book; unknown ids are skipped. */
+    interface Sink {
+        void accept(UUID bookId, int availableCopies, int totalCopies);
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final UuidIntMap slots;
+    private int[] available;
+    private int[] total;
+    private int[] free = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    AvailabilityTable(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        slots = new UuidIntMap(capacity);
+        available = new int[capacity];
+        total = new int[capacity];
+    }
+
+    void put(UUID bookId, int availableCopies, int totalCopies) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(bookId);
+            if (slot == UuidIntMap.MISSING) {
+                slot = freeCount > 0 ? free[--freeCount] : slotCount++;
+                if (slot == available.length) {
+                    available = Arrays.copyOf(available, slot << 1);
+                    total = Arrays.copyOf(total, slot << 1);
+                }
+                slots.put(bookId, slot);
+            }
+            available[slot] = availableCopies;
+            total[slot] = totalCopies;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(UUID bookId) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.remove(bookId);
+            if (slot == UuidIntMap.MISSING) return false;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount << 1);
+            free[freeCount++] = slot;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Looks up all {@code bookIds} under one read lock, in the given order; returns how many were known. */
+    int lookup(Iterable<UUID> bookIds, Sink sink) {
+        lock.readLock().lock();
+        try {
+            int found = 0;
+            for (UUID id : bookIds) {
+                int slot = slots.get(id);
+                if (slot == UuidIntMap.MISSING) continue;
+                sink.accept(id, available[slot], total[slot]);
+                found++;
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
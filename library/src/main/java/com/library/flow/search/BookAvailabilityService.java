@@ -0,0 +1,195 @@
+package com.library.flow.search;
+
+import com.library.flow.common.dto.BookAvailability;
+import com.library.flow.common.error.custom.ServiceUnavailableException;
+import com.library.flow.service.BookChangeFeed;
+import com.library.flow.service.BookChangeListener;
+import com.library.flow.service.CacheInvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Available/total copies for many books at once, answered from an {@link AvailabilityTable} without
+ * loading entities or touching the database.
+ * <p>
+ * The table is filled at startup from one streaming scan and answers 503 until then. Loans and returns
+ * report their books through {@link #copiesChanged}; catalog edits, imports and deletes arrive through
+ * {@link BookChangeFeed}. Either way the rows are re-read once the writing transaction commits, on one
+ * {@link ReadModelLoader} thread, so the table trails the database by that reload and never shows uncommitted counts.
+ * <p>
+ * Other instances hear about loans over the {@link CacheInvalidationBus}, but never from inside the loan
+ * transaction: a NOTIFY there would hold Postgres' cluster-wide notify lock until the commit is flushed
+ * and so serialize every loan. Instead the committed ids are collected here and published from the
+ * loader thread at most once per {@code library.availability.publishMillis}. With the table disabled
+ * nothing is published at all.
+ */
+@Service
+@Slf4j
+public class BookAvailabilityService implements BookChangeListener {
+
+    static final String TOPIC = "bookAvailability";
+    private static final String ROWS = "select b.id, b.availableCopies, b.totalCopies from Book b";
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final CacheInvalidationBus bus;
+    private final ReadModelLoader loader;
+    private final Timer queryTimer;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final long publishMillis;
+    private final Set<UUID> unpublished = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean publishScheduled = new AtomicBoolean();
+
+    private volatile AvailabilityTable table = new AvailabilityTable(0);
+    private volatile boolean ready;
+
+    public BookAvailabilityService(EntityManager em, PlatformTransactionManager transactionManager,
+                                   CacheInvalidationBus bus, BookChangeFeed feed, MeterRegistry registry,
+                                   @Value("${library.availability.enabled:true}") boolean enabled,
+                                   @Value("${library.availability.fetchSize:5000}") int fetchSize,
+                                   @Value("${library.availability.publishMillis:200}") long publishMillis) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.bus = bus;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.publishMillis = publishMillis;
+        this.loader = new ReadModelLoader("book-availability-loader", enabled);
+        this.queryTimer = Timer.builder("library.availability.query")
+                .description("Time to answer one batch availability request from memory")
+                .register(registry);
+        Gauge.builder("library.availability.books", this, s -> s.table.size())
+                .description("Books in the availability table")
+                .register(registry);
+        bus.onInvalidate(TOPIC, this::changed);
+        feed.register(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        loader.start(this::rebuild);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdown();
+    }
+
+    /** Copies of the known books among {@code bookIds}, in request order; unknown ids are left out. */
+    public List<BookAvailability> availability(Collection<UUID> bookIds) {
+        if (!ready) throw new ServiceUnavailableException("availability table is still being loaded");
+        long begin = System.nanoTime();
+        List<BookAvailability> out = new ArrayList<>(bookIds.size());
+        table.lookup(bookIds, (id, available, total) -> out.add(new BookAvailability(id, available, total)));
+        queryTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+        return out;
+    }
+
+    /** Call from inside the transaction that borrowed or returned copies of these books. */
+    public void copiesChanged(Collection<UUID> bookIds) {
+        if (!enabled || bookIds.isEmpty()) return;
+        List<UUID> ids = List.copyOf(bookIds);
+        ReadModelLoader.onCommit(() -> {
+            loader.submit(() -> reload(ids));
+            unpublished.addAll(ids);
+            if (publishScheduled.compareAndSet(false, true)) loader.schedule(this::publishPending, publishMillis);
+        });
+    }
+
+    @Override
+    public void booksChanged(Collection<UUID> bookIds) {
+        changed(List.copyOf(bookIds));
+    }
+
+    @Override
+    public void reset() {
+        loader.submit(this::rebuild);
+    }
+
+    /** {@code ids == null} means the bus may have missed messages; reload everything. */
+    private void changed(List<UUID> ids) {
+        loader.submit(ids == null ? this::rebuild : () -> reload(ids));
+    }
+
+    /** Sends the ids collected since the last run in one message (per 150 ids), outside any transaction. */
+    private void publishPending() {
+        publishScheduled.set(false);
+        List<UUID> ids = new ArrayList<>(unpublished.size());
+        for (Iterator<UUID> it = unpublished.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        try {
+            bus.publish(TOPIC, ids);
+        } catch (RuntimeException ex) {
+            log.warn("Availability publish failed: books={}, reason={}", ids.size(), ex.getMessage());
+        }
+    }
+
+    private void rebuild() {
+        long begin = System.nanoTime();
+        try {
+            AvailabilityTable fresh = new AvailabilityTable(Math.max(1024, table.size()));
+            Long books = readOnlyTx.execute(status -> {
+                long n = 0;
+                try (ScrollableResults<Object[]> rows = em.unwrap(Session.class)
+                        .createQuery(ROWS, Object[].class)
+                        .setFetchSize(fetchSize)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (rows.next()) {
+                        put(fresh, rows.get());
+                        n++;
+                    }
+                }
+                return n;
+            });
+            table = fresh;
+            ready = true;
+            log.info("Availability table loaded: books={}, tookMs={}", books, (System.nanoTime() - begin) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Availability table load failed: reason={}", ex.getMessage(), ex);
+        }
+    }
+
+    private void reload(List<UUID> ids) {
+        AvailabilityTable target = table;
+        ReadModelLoader.inBatches(ids, batch -> {
+            List<Object[]> rows = readOnlyTx.execute(status -> em.createQuery(ROWS + " where b.id in :ids", Object[].class)
+                    .setParameter("ids", batch)
+                    .getResultList());
+            Set<UUID> missing = new HashSet<>(batch);
+            for (Object[] row : rows) {
+                put(target, row);
+                missing.remove((UUID) row[0]);
+            }
+            for (UUID id : missing) target.remove(id);
+        });
+    }
+
+    private static void put(AvailabilityTable target, Object[] row) {
+        target.put((UUID) row[0],
+                row[1] != null ? (Integer) row[1] : 0,
+                row[2] != null ? (Integer) row[2] : 0);
+    }
+}
@@ -0,0 +1,214 @@
+package com.library.flow.search;
+
+import com.library.flow.common.dto.BookFacets;
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.dto.FacetCount;
+import com.library.flow.common.error.custom.NotFoundException;
+import com.library.flow.common.error.custom.ServiceUnavailableException;
+import com.library.flow.service.BookChangeFeed;
+import com.library.flow.service.BookChangeListener;
+import com.library.flow.service.CategoryService;
+import com.library.flow.service.CategoryTree;
+import com.library.flow.service.PublisherService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Facet counts for the filtered book listing, served from a {@link FacetIndex} without touching the database.
+ * <p>
+ * Like {@link BookSearchService}, the index is built at startup from one streaming scan in book id order,
+ * answers 503 until then, and follows {@link BookChangeFeed} on a {@link ReadModelLoader} thread.
+ * Publisher and category labels come from the catalog cache. A selected category is expanded to its
+ * subtree from the {@link CategoryTree} snapshot before counting; each category's own count is the
+ * books filed directly under it.
+ */
+@Service
+@Slf4j
+public class BookFacetService implements BookChangeListener {
+
+    /** One row per (book, category); rows of one book are adjacent because of the ordering. */
+    private static final String ROWS =
+            "select b.id, b.language, b.publicationYear, b.publisher.id, c.id from Book b left join b.categories c ";
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final PublisherService publisherService;
+    private final CategoryService categoryService;
+    private final CategoryTree categoryTree;
+    private final ReadModelLoader indexer;
+    private final Timer queryTimer;
+    private final int fetchSize;
+
+    private volatile FacetIndex index = new FacetIndex();
+    private volatile boolean ready;
+
+    public BookFacetService(EntityManager em, PlatformTransactionManager transactionManager,
+                            PublisherService publisherService, CategoryService categoryService,
+                            CategoryTree categoryTree, BookChangeFeed feed, MeterRegistry registry,
+                            @Value("${library.facets.enabled:true}") boolean enabled,
+                            @Value("${library.facets.fetchSize:5000}") int fetchSize) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.publisherService = publisherService;
+        this.categoryService = categoryService;
+        this.categoryTree = categoryTree;
+        this.fetchSize = fetchSize;
+        this.indexer = new ReadModelLoader("book-facet-indexer", enabled);
+        this.queryTimer = Timer.builder("library.facets.query")
+                .description("Time to count facet values for one filter in memory")
+                .register(registry);
+        Gauge.builder("library.facets.index.books", this, s -> s.index.size())
+                .description("Books in the facet index")
+                .register(registry);
+        feed.register(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        indexer.start(this::rebuild);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        indexer.shutdown();
+    }
+
+    public BookFacets facets(BookFilter filter, int limit) {
+        if (!ready) throw new ServiceUnavailableException("facet index is still being built");
+        long begin = System.nanoTime();
+        FacetIndex.Counts counts = index.count(withSubcategories(filter), limit);
+        long tookNanos = System.nanoTime() - begin;
+        queryTimer.record(tookNanos, TimeUnit.NANOSECONDS);
+        return new BookFacets(counts.total(),
+                labelled(counts.languages(), v -> null),
+                labelled(counts.years(), v -> null),
+                labelled(counts.publishers(), id -> label(() -> publisherService.getPublisher(id).name())),
+                labelled(counts.categories(), id -> label(() -> categoryService.getCategory(id).name())),
+                tookNanos / 1000);
+    }
+
+    @Override
+    public void booksChanged(Collection<UUID> bookIds) {
+        List<UUID> ids = List.copyOf(bookIds);
+        indexer.submit(() -> reload(ids));
+    }
+
+    @Override
+    public void reset() {
+        indexer.submit(this::rebuild);
+    }
+
+    /** A selected category also selects the categories below it, as in the listing. */
+    private BookFilter withSubcategories(BookFilter filter) {
+        if (filter.categoryIds().isEmpty()) return filter;
+        return new BookFilter(filter.languages(), filter.yearFrom(), filter.yearTo(), filter.publisherIds(),
+                categoryTree.current().withDescendants(filter.categoryIds()));
+    }
+
+    private static <V> List<FacetCount> labelled(List<FacetIndex.ValueCount<V>> counts, Function<V, String> label) {
+        List<FacetCount> out = new ArrayList<>(counts.size());
+        for (FacetIndex.ValueCount<V> c : counts) {
+            out.add(new FacetCount(String.valueOf(c.value()), label.apply(c.value()), c.count()));
+        }
+        return out;
+    }
+
+    /** Null when the publisher or category was deleted after the counts were taken. */
+    private static String label(Supplier<String> name) {
+        try {
+            return name.get();
+        } catch (NotFoundException ex) {
+            return null;
+        }
+    }
+
+    private void rebuild() {
+        long begin = System.nanoTime();
+        try {
+            FacetIndex fresh = new FacetIndex();
+            Long books = readOnlyTx.execute(status -> {
+                try (ScrollableResults<Object[]> rows = em.unwrap(Session.class)
+                        .createQuery(ROWS + "order by b.id", Object[].class)
+                        .setFetchSize(fetchSize)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    Grouper grouper = new Grouper(fresh);
+                    while (rows.next()) grouper.accept(rows.get());
+                    return grouper.finish();
+                }
+            });
+            index = fresh;
+            ready = true;
+            log.info("Facet index built: books={}, tookMs={}", books, (System.nanoTime() - begin) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Facet index build failed: reason={}", ex.getMessage(), ex);
+        }
+    }
+
+    private void reload(List<UUID> ids) {
+        FacetIndex target = index;
+        ReadModelLoader.inBatches(ids, batch -> {
+            List<Object[]> rows = readOnlyTx.execute(status -> em.createQuery(
+                            ROWS + "where b.id in :ids order by b.id", Object[].class)
+                    .setParameter("ids", batch)
+                    .getResultList());
+            Set<UUID> missing = new HashSet<>(batch);
+            Grouper grouper = new Grouper(target);
+            for (Object[] row : rows) {
+                grouper.accept(row);
+                missing.remove((UUID) row[0]);
+            }
+            grouper.finish();
+            for (UUID id : missing) target.remove(id);
+        });
+    }
+
+    /** Folds consecutive rows of the same book into one {@link FacetIndex#put}. */
+    private static final class Grouper {
+        private final FacetIndex target;
+        private final List<UUID> categories = new ArrayList<>();
+        private Object[] current;
+        private long books;
+
+        Grouper(FacetIndex target) {
+            this.target = target;
+        }
+
+        void accept(Object[] row) {
+            if (current != null && !current[0].equals(row[0])) flush();
+            if (current == null) current = row;
+            if (row[4] != null) categories.add((UUID) row[4]);
+        }
+
+        long finish() {
+            if (current != null) flush();
+            return books;
+        }
+
+        private void flush() {
+            target.put((UUID) current[0], (String) current[1], (Integer) current[2], (UUID) current[3], categories);
+            categories.clear();
+            current = null;
+            books++;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.library.flow.search;
+
+import com.library.flow.common.dto.BookExportRow;
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.common.dto.BookSearchHit;
+import com.library.flow.common.dto.BookSearchResult;
+import com.library.flow.common.error.custom.ServiceUnavailableException;
+import com.library.flow.service.BookChangeFeed;
+import com.library.flow.service.BookChangeListener;
+import com.library.flow.service.BookExportService;
+import com.library.flow.service.BookService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over title, summary, author names, publisher and ISBN.
+ * <p>
+ * The index lives in memory ({@link InvertedIndex}). It is built at startup from a streaming scan
+ * of the catalog and then follows {@link BookChangeFeed}: changed books are re-read and re-indexed
+ * after their transaction commits. All index writes happen on one {@link ReadModelLoader} thread, in the
+ * order the changes were reported.
+ */
+@Service
+@Slf4j
+public class BookSearchService implements BookChangeListener {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int ISBN_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int PUBLISHER_WEIGHT = 1;
+    private static final int SUMMARY_WEIGHT = 1;
+
+    private final BookExportService exportService;
+    private final BookService bookService;
+    private final ReadModelLoader indexer;
+    private final Timer queryTimer;
+    private final int maxPrefixExpansions;
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready;
+
+    public BookSearchService(BookExportService exportService, BookService bookService, BookChangeFeed feed,
+                             MeterRegistry registry,
+                             @Value("${library.search.enabled:true}") boolean enabled,
+                             @Value("${library.search.maxPrefixExpansions:32}") int maxPrefixExpansions) {
+        this.exportService = exportService;
+        this.bookService = bookService;
+        this.maxPrefixExpansions = maxPrefixExpansions;
+        this.indexer = new ReadModelLoader("book-search-indexer", enabled);
+        this.queryTimer = Timer.builder("library.search.query")
+                .description("Time to match and rank one search query in the index")
+                .register(registry);
+        Gauge.builder("library.search.index.books", this, s -> s.index.size())
+                .description("Books in the search index")
+                .register(registry);
+        Gauge.builder("library.search.index.terms", this, s -> s.index.termCount())
+                .description("Distinct terms in the search index")
+                .register(registry);
+        feed.register(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        indexer.start(this::rebuild);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        indexer.shutdown();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Every term of {@code query} must match. Unless the query ends with a space, its last term is
+     * also matched as a prefix, so results follow the user while they type.
+     */
+    public BookSearchResult search(String query, int limit) {
+        if (!ready) throw new ServiceUnavailableException("search index is still being built");
+        long started = System.nanoTime();
+        List<String> terms = TextAnalyzer.terms(query);
+        String prefix = null;
+        if (!terms.isEmpty() && !query.endsWith(" ") && terms.get(terms.size() - 1).length() >= 2) {
+            prefix = terms.remove(terms.size() - 1);
+        }
+        InvertedIndex.Result result = index.search(terms, prefix, maxPrefixExpansions, limit);
+        long matchedNanos = System.nanoTime() - started;
+        queryTimer.record(matchedNanos, TimeUnit.NANOSECONDS);
+
+        List<UUID> ids = new ArrayList<>(result.hits().size());
+        for (InvertedIndex.Hit hit : result.hits()) ids.add(hit.id());
+        Map<UUID, BookListItem> books = new HashMap<>();
+        for (BookListItem b : bookService.findListItems(ids)) books.put(b.id(), b);
+        List<BookSearchHit> hits = new ArrayList<>(ids.size());
+        List<UUID> gone = new ArrayList<>();
+        for (InvertedIndex.Hit hit : result.hits()) {
+            BookListItem book = books.get(hit.id());
+            if (book != null) hits.add(new BookSearchHit(book, hit.score()));
+            else gone.add(hit.id());
+        }
+        // deleted behind the application's back; drop them from the index
+        if (!gone.isEmpty()) booksChanged(gone);
+        log.debug("search: query='{}', matches={}, matchMicros={}", query, result.total(), matchedNanos / 1000);
+        return new BookSearchResult(query, result.total(), matchedNanos / 1000, hits);
+    }
+
+    @Override
+    public void booksChanged(Collection<UUID> bookIds) {
+        List<UUID> ids = List.copyOf(bookIds);
+        indexer.submit(() -> reindex(ids));
+    }
+
+    @Override
+    public void reset() {
+        indexer.submit(this::rebuild);
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        try {
+            InvertedIndex fresh = new InvertedIndex();
+            long rows = exportService.scan(null, chunk -> {
+                for (BookExportRow row : chunk) fresh.put(row.id(), termFrequencies(row));
+            });
+            fresh.trimToSize();
+            index = fresh;
+            ready = true;
+            log.info("Search index built: books={}, terms={}, tookMs={}",
+                    rows, fresh.termCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Search index build failed: reason={}", ex.getMessage(), ex);
+        }
+    }
+
+    private void reindex(List<UUID> ids) {
+        InvertedIndex target = index;
+        ReadModelLoader.inBatches(ids, batch -> {
+            Set<UUID> missing = new HashSet<>(batch);
+            for (BookExportRow row : exportService.loadRows(batch)) {
+                target.put(row.id(), termFrequencies(row));
+                missing.remove(row.id());
+            }
+            for (UUID id : missing) target.remove(id);
+        });
+        if (target.compactIfNeeded()) log.info("Search index compacted: books={}", target.size());
+    }
+
+    private static Map<String, Integer> termFrequencies(BookExportRow row) {
+        Map<String, Integer> tf = new HashMap<>();
+        add(tf, row.title(), TITLE_WEIGHT);
+        add(tf, row.isbn(), ISBN_WEIGHT);
+        for (String author : row.authors()) add(tf, author, AUTHOR_WEIGHT);
+        add(tf, row.publisher(), PUBLISHER_WEIGHT);
+        add(tf, row.summary(), SUMMARY_WEIGHT);
+        return tf;
+    }
+
+    private static void add(Map<String, Integer> tf, String text, int weight) {
+        for (String term : TextAnalyzer.terms(text)) tf.merge(term, weight, Integer::sum);
+    }
+}
@@ -0,0 +1,356 @@
+package com.library.flow.search;
+
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.util.UuidIntMap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Facet values of every book (language, publication year, publisher, categories) as one doc set per
+ * value, so counts for any filter are computed with bitwise operations instead of {@code GROUP BY}s.
+ * <p>
+ * Books get dense doc numbers; a deleted book's number is reused by the next insert. A value's doc set
+ * is a sorted {@code int[]} while it is small and switches to a bitmap once it holds more than 1/32 of
+ * the catalog, so the long tail of publishers and categories costs four bytes per book rather than a
+ * bitmap each. The values of each doc are also kept per doc, for removal and for counting small filters.
+ * Counting follows the usual multi-select rule: a facet's counts apply the selections of all other
+ * facets but not its own.
+ */
+final class FacetIndex {
+
+    private static final int NONE = -1;
+
+    record ValueCount<V>(V value, long count) {}
+
+    record Counts(long total,
+                  List<ValueCount<String>> languages,
+                  List<ValueCount<Integer>> years,
+                  List<ValueCount<UUID>> publishers,
+                  List<ValueCount<UUID>> categories) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final UuidIntMap docIds = new UuidIntMap(1024);
+    private final Facet<String> languages = new Facet<>();
+    private final Facet<Integer> years = new Facet<>();
+    private final Facet<UUID> publishers = new Facet<>();
+    private final Facet<UUID> categories = new Facet<>();
+    private long[] live = new long[16];
+    private int[] docLanguage = new int[1024];
+    private int[] docYear = new int[1024];
+    private int[] docPublisher = new int[1024];
+    private int[][] docCategories = new int[1024][];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int docCount;
+    private int liveCount;
+
+    /** Adds the book or replaces its previous facet values. */
+    void put(UUID id, String language, Integer year, UUID publisherId, Collection<UUID> categoryIds) {
+        lock.writeLock().lock();
+        try {
+            int doc = docIds.get(id);
+            if (doc == UuidIntMap.MISSING) {
+                doc = freeCount > 0 ? free[--freeCount] : docCount++;
+                ensureDocCapacity(doc + 1);
+                docIds.put(id, doc);
+                live[doc >>> 6] |= 1L << doc;
+                liveCount++;
+            } else {
+                clearValues(doc);
+            }
+            docLanguage[doc] = language != null ? languages.add(language, doc, docCount) : NONE;
+            docYear[doc] = year != null ? years.add(year, doc, docCount) : NONE;
+            docPublisher[doc] = publisherId != null ? publishers.add(publisherId, doc, docCount) : NONE;
+            int[] cats = new int[categoryIds.size()];
+            int n = 0;
+            for (UUID c : categoryIds) cats[n++] = categories.add(c, doc, docCount);
+            docCategories[doc] = cats;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            int doc = docIds.remove(id);
+            if (doc == UuidIntMap.MISSING) return false;
+            clearValues(doc);
+            live[doc >>> 6] &= ~(1L << doc);
+            liveCount--;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount << 1);
+            free[freeCount++] = doc;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Counts for {@code filter}; languages, publishers and categories keep their {@code limit} largest values. */
+    Counts count(BookFilter filter, int limit) {
+        lock.readLock().lock();
+        try {
+            int words = (docCount + 63) >>> 6;
+            long[][] selected = {
+                    filter.languages().isEmpty() ? null : union(languages, filter.languages()::contains, words, docLanguage, null),
+                    filter.hasYearRange() ? union(years, filter::matchesYear, words, docYear, null) : null,
+                    filter.publisherIds().isEmpty() ? null : union(publishers, filter.publisherIds()::contains, words, docPublisher, null),
+                    filter.categoryIds().isEmpty() ? null : union(categories, filter.categoryIds()::contains, words, null, docCategories)
+            };
+            long total = cardinality(matching(selected, -1, words));
+            List<ValueCount<String>> byLanguage = languages.top(tally(languages, selected, 0, words, docLanguage, null), limit);
+            List<ValueCount<Integer>> byYear = years.top(tally(years, selected, 1, words, docYear, null), Integer.MAX_VALUE);
+            List<ValueCount<UUID>> byPublisher = publishers.top(tally(publishers, selected, 2, words, docPublisher, null), limit);
+            List<ValueCount<UUID>> byCategory = categories.top(tally(categories, selected, 3, words, null, docCategories), limit);
+            byYear.sort(Comparator.comparing(ValueCount::value));
+            return new Counts(total, byLanguage, byYear, byPublisher, byCategory);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Per-value counts of {@code facet} over the docs matching every selection but its own. With no
+     * other selection these are just the set sizes; otherwise the cheaper of two ways is taken:
+     * intersecting each value's set with the filter, or walking the filter's docs and reading their
+     * values from the per-doc arrays ({@code single} for one value per book, {@code multi} for several).
+     */
+    private long[] tally(Facet<?> facet, long[][] selected, int skip, int words, int[] single, int[][] multi) {
+        long[] counts = new long[facet.sets.size()];
+        boolean unfiltered = true;
+        for (int f = 0; f < selected.length; f++) unfiltered &= f == skip || selected[f] == null;
+        if (unfiltered) {
+            for (int i = 0; i < counts.length; i++) counts[i] = facet.sets.get(i).size;
+            return counts;
+        }
+        long[] filter = matching(selected, skip, words);
+        long docs = cardinality(filter);
+        if (docs * (multi != null ? 2 : 1) > facet.intersectionCost(words)) {
+            for (int i = 0; i < counts.length; i++) counts[i] = facet.sets.get(i).countIn(filter);
+            return counts;
+        }
+        for (int w = 0; w < words; w++) {
+            for (long bits = filter[w]; bits != 0; bits &= bits - 1) {
+                int doc = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (multi != null) {
+                    for (int o : multi[doc]) counts[o]++;
+                } else if (single[doc] != NONE) {
+                    counts[single[doc]]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Docs having any selected value of {@code facet}: the union of the selected sets, or - when those
+     * sets are large, as for a wide year range - one pass over the per-doc values.
+     */
+    private <V> long[] union(Facet<V> facet, Predicate<V> selected, int words, int[] single, int[][] multi) {
+        boolean[] chosen = new boolean[facet.values.size()];
+        long cost = 0;
+        for (int i = 0; i < chosen.length; i++) {
+            if (!selected.test(facet.values.get(i))) continue;
+            chosen[i] = true;
+            DocSet set = facet.sets.get(i);
+            cost += set.dense != null ? words : set.size;
+        }
+        long[] out = new long[words];
+        if (cost <= (long) docCount * (multi != null ? 2 : 1)) {
+            for (int i = 0; i < chosen.length; i++) {
+                if (chosen[i]) facet.sets.get(i).orInto(out);
+            }
+            return out;
+        }
+        for (int doc = 0; doc < docCount; doc++) {
+            boolean hit = false;
+            if (multi != null) {
+                if (multi[doc] != null) {
+                    for (int o : multi[doc]) hit |= chosen[o];
+                }
+            } else {
+                hit = single[doc] != NONE && chosen[single[doc]];
+            }
+            if (hit) out[doc >>> 6] |= 1L << doc;
+        }
+        return out;
+    }
+
+    /** Live docs in every selected facet except {@code skip}. */
+    private long[] matching(long[][] selected, int skip, int words) {
+        long[] out = Arrays.copyOf(live, words);
+        for (int f = 0; f < selected.length; f++) {
+            long[] s = selected[f];
+            if (f == skip || s == null) continue;
+            for (int w = 0; w < words; w++) out[w] &= s[w];
+        }
+        return out;
+    }
+
+    private static long cardinality(long[] bits) {
+        long n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        return n;
+    }
+
+    private void clearValues(int doc) {
+        if (docLanguage[doc] != NONE) languages.remove(docLanguage[doc], doc);
+        if (docYear[doc] != NONE) years.remove(docYear[doc], doc);
+        if (docPublisher[doc] != NONE) publishers.remove(docPublisher[doc], doc);
+        if (docCategories[doc] != null) {
+            for (int c : docCategories[doc]) categories.remove(c, doc);
+            docCategories[doc] = null;
+        }
+    }
+
+    private void ensureDocCapacity(int needed) {
+        if (needed > live.length << 6) live = Arrays.copyOf(live, Math.max((needed + 63) >>> 6, live.length << 1));
+        if (needed <= docLanguage.length) return;
+        int capacity = Math.max(needed, docLanguage.length + (docLanguage.length >> 1));
+        docLanguage = Arrays.copyOf(docLanguage, capacity);
+        docYear = Arrays.copyOf(docYear, capacity);
+        docPublisher = Arrays.copyOf(docPublisher, capacity);
+        docCategories = Arrays.copyOf(docCategories, capacity);
+    }
+
+    /** One facet: its distinct values, each with the docs that have it. */
+    private static final class Facet<V> {
+        private final Map<V, Integer> ordinals = new HashMap<>();
+        private final List<V> values = new ArrayList<>();
+        private final List<DocSet> sets = new ArrayList<>();
+
+        int add(V value, int doc, int universe) {
+            int ordinal = ordinals.computeIfAbsent(value, v -> {
+                values.add(v);
+                sets.add(new DocSet());
+                return values.size() - 1;
+            });
+            sets.get(ordinal).add(doc, universe);
+            return ordinal;
+        }
+
+        void remove(int ordinal, int doc) {
+            sets.get(ordinal).remove(doc);
+        }
+
+        /** Rough number of memory reads to intersect every value's set with a filter of {@code words} words. */
+        long intersectionCost(int words) {
+            long cost = 0;
+            for (DocSet set : sets) cost += set.dense != null ? words : set.size;
+            return cost;
+        }
+
+        /** The {@code limit} values with the largest non-zero counts, largest first; only those become objects. */
+        List<ValueCount<V>> top(long[] counts, int limit) {
+            int[] heap = new int[Math.min(limit, counts.length)];
+            int size = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) continue;
+                if (size < heap.length) {
+                    heap[size] = i;
+                    for (int c = size++; c > 0 && counts[heap[(c - 1) >>> 1]] > counts[heap[c]]; c = (c - 1) >>> 1) {
+                        swap(heap, c, (c - 1) >>> 1);
+                    }
+                } else if (counts[i] > counts[heap[0]]) {
+                    heap[0] = i;
+                    for (int c = 0; ; ) {
+                        int l = 2 * c + 1, m = c;
+                        if (l < size && counts[heap[l]] < counts[heap[m]]) m = l;
+                        if (l + 1 < size && counts[heap[l + 1]] < counts[heap[m]]) m = l + 1;
+                        if (m == c) break;
+                        swap(heap, c, m);
+                        c = m;
+                    }
+                }
+            }
+            List<ValueCount<V>> out = new ArrayList<>(size);
+            for (int k = 0; k < size; k++) out.add(new ValueCount<>(values.get(heap[k]), counts[heap[k]]));
+            out.sort(Comparator.comparingLong((ValueCount<V> c) -> c.count()).reversed());
+            return out;
+        }
+
+        private static void swap(int[] a, int i, int j) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /** Docs with one value: a sorted {@code int[]} while small, a bitmap once that is the smaller of the two. */
+    private static final class DocSet {
+        private int[] sparse = new int[2];
+        private long[] dense;
+        private int size;
+
+        void add(int doc, int universe) {
+            if (dense != null) {
+                if (doc >>> 6 >= dense.length) dense = Arrays.copyOf(dense, Math.max((doc >>> 6) + 1, dense.length << 1));
+                if ((dense[doc >>> 6] & 1L << doc) == 0) {
+                    dense[doc >>> 6] |= 1L << doc;
+                    size++;
+                }
+                return;
+            }
+            int i = Arrays.binarySearch(sparse, 0, size, doc);
+            if (i >= 0) return;
+            i = -i - 1;
+            if (size == sparse.length) sparse = Arrays.copyOf(sparse, size + Math.max(2, size >> 1));
+            System.arraycopy(sparse, i, sparse, i + 1, size - i);
+            sparse[i] = doc;
+            size++;
+            if (size > 64 && size > universe >>> 5) toDense(universe);
+        }
+
+        void remove(int doc) {
+            if (dense != null) {
+                if (doc >>> 6 < dense.length && (dense[doc >>> 6] & 1L << doc) != 0) {
+                    dense[doc >>> 6] &= ~(1L << doc);
+                    size--;
+                }
+                return;
+            }
+            int i = Arrays.binarySearch(sparse, 0, size, doc);
+            if (i < 0) return;
+            System.arraycopy(sparse, i + 1, sparse, i, size - i - 1);
+            size--;
+        }
+
+        void orInto(long[] out) {
+            if (dense != null) {
+                for (int w = 0, n = Math.min(out.length, dense.length); w < n; w++) out[w] |= dense[w];
+                return;
+            }
+            for (int i = 0; i < size; i++) out[sparse[i] >>> 6] |= 1L << sparse[i];
+        }
+
+        long countIn(long[] filter) {
+            long n = 0;
+            if (dense != null) {
+                for (int w = 0, end = Math.min(filter.length, dense.length); w < end; w++) n += Long.bitCount(dense[w] & filter[w]);
+                return n;
+            }
+            for (int i = 0; i < size; i++) {
+                int doc = sparse[i];
+                if ((filter[doc >>> 6] & 1L << doc) != 0) n++;
+            }
+            return n;
+        }
+
+        private void toDense(int universe) {
+            dense = new long[Math.max((universe + 63) >>> 6, (sparse[size - 1] >>> 6) + 1)];
+            for (int i = 0; i < size; i++) dense[sparse[i] >>> 6] |= 1L << sparse[i];
+            sparse = null;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.library.flow.search;
+
+import com.library.flow.common.util.UuidIntMap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ * <p>
+ * Documents get dense int ids in insertion order, so every posting list is appended in increasing
+ * doc order and can be stored as varint-encoded (doc delta, term frequency) pairs in a single
+ * {@code byte[]} - typically two or three bytes per posting. Replacing a document deletes the old
+ * doc id (a bit in {@code live}) and appends a new one; deleted ids are squeezed out by
+ * {@link #compactIfNeeded()} once they make up a quarter of the index.
+ * <p>
+ * Queries are conjunctive: every term must match, and the optional prefix term matches any of its
+ * most frequent expansions. Matching walks the posting lists in doc order, always advancing the
+ * rarest list first, and keeps only the top hits in a primitive heap.
+ * <p>
+ * Searches share a read lock, so they run in parallel with each other but not with writes. Putting
+ * or removing one book holds the write lock for a few microseconds; a compaction rewrites every
+ * posting list under it, and searches wait for that pass. Full rebuilds happen on a fresh index that
+ * is swapped in, so they never hold up searches.
+ */
+final class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+
+    record Hit(UUID id, float score) {}
+
+    record Result(int total, List<Hit> hits) {
+        static final Result EMPTY = new Result(0, List.of());
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final UuidIntMap docIds = new UuidIntMap(1024);
+    private long[] docHi = new long[1024];
+    private long[] docLo = new long[1024];
+    private int[] docLength = new int[1024];
+    private BitSet live = new BitSet();
+    private int docCount;
+    private int liveCount;
+    private long liveLength;
+
+    /** Adds the document or replaces its previous version; {@code termFreqs} may already be field-weighted. */
+    void put(UUID id, Map<String, Integer> termFreqs) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int doc = docCount++;
+            ensureDocCapacity(doc + 1);
+            int length = 0;
+            for (Map.Entry<String, Integer> e : termFreqs.entrySet()) {
+                terms.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue());
+                length += e.getValue();
+            }
+            docHi[doc] = id.getMostSignificantBits();
+            docLo[doc] = id.getLeastSignificantBits();
+            docLength[doc] = length;
+            live.set(doc);
+            liveCount++;
+            liveLength += length;
+            docIds.put(id, doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Result search(List<String> exactTerms, String prefix, int maxExpansions, int limit) {
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0 || (exactTerms.isEmpty() && prefix == null)) return Result.EMPTY;
+            List<Group> groups = new ArrayList<>(exactTerms.size() + 1);
+            for (String term : new LinkedHashSet<>(exactTerms)) {
+                Postings p = terms.get(term);
+                if (p == null) return Result.EMPTY;
+                groups.add(new Group(List.of(p)));
+            }
+            if (prefix != null) {
+                List<Postings> expansions = expand(prefix, maxExpansions);
+                if (expansions.isEmpty()) return Result.EMPTY;
+                groups.add(new Group(expansions));
+            }
+            groups.sort(Comparator.comparingLong(g -> g.cost));
+
+            float avgLength = Math.max(1f, (float) liveLength / liveCount);
+            TopK top = new TopK(limit);
+            int total = 0;
+            Group lead = groups.get(0);
+            int target = 0;
+            outer:
+            while (true) {
+                int doc = lead.advance(target);
+                if (doc == Integer.MAX_VALUE) break;
+                for (int g = 1; g < groups.size(); g++) {
+                    int other = groups.get(g).advance(doc);
+                    if (other == Integer.MAX_VALUE) break outer;
+                    if (other != doc) {
+                        target = other;
+                        continue outer;
+                    }
+                }
+                if (live.get(doc)) {
+                    total++;
+                    float norm = K1 * (1 - B + B * docLength[doc] / avgLength);
+                    float score = 0;
+                    for (Group g : groups) score += g.score(doc, norm);
+                    top.offer(doc, score);
+                }
+                target = doc + 1;
+            }
+            return new Result(total, top.drain());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Drops deleted documents from every posting list and renumbers the rest densely. */
+    boolean compactIfNeeded() {
+        lock.writeLock().lock();
+        try {
+            int dead = docCount - liveCount;
+            if (dead < MIN_DEAD_FOR_COMPACTION || dead * 4 < docCount) return false;
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int d = 0; d < docCount; d++) remap[d] = live.get(d) ? next++ : -1;
+
+            Iterator<Map.Entry<String, Postings>> it = terms.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Postings> e = it.next();
+                Postings compacted = e.getValue().remap(remap);
+                if (compacted.count == 0) it.remove();
+                else e.setValue(compacted);
+            }
+
+            int capacity = Math.max(1024, next);
+            long[] hi = new long[capacity];
+            long[] lo = new long[capacity];
+            int[] length = new int[capacity];
+            docIds.clear();
+            for (int d = 0; d < docCount; d++) {
+                int nd = remap[d];
+                if (nd < 0) continue;
+                hi[nd] = docHi[d];
+                lo[nd] = docLo[d];
+                length[nd] = docLength[d];
+                docIds.put(new UUID(docHi[d], docLo[d]), nd);
+            }
+            docHi = hi;
+            docLo = lo;
+            docLength = length;
+            live = new BitSet(next);
+            live.set(0, next);
+            docCount = next;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Releases the spare room posting lists keep for appends; worth doing after a bulk build. */
+    void trimToSize() {
+        lock.writeLock().lock();
+        try {
+            for (Postings p : terms.values()) p.trim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(UUID id) {
+        int doc = docIds.remove(id);
+        if (doc == UuidIntMap.MISSING) return false;
+        live.clear(doc);
+        liveCount--;
+        liveLength -= docLength[doc];
+        return true;
+    }
+
+    private void ensureDocCapacity(int needed) {
+        if (needed <= docHi.length) return;
+        int capacity = Math.max(needed, docHi.length + (docHi.length >> 1));
+        docHi = Arrays.copyOf(docHi, capacity);
+        docLo = Arrays.copyOf(docLo, capacity);
+        docLength = Arrays.copyOf(docLength, capacity);
+    }
+
+    /** The most frequent terms starting with {@code prefix}, looking at a bounded number of candidates. */
+    private List<Postings> expand(String prefix, int max) {
+        List<Postings> candidates = new ArrayList<>();
+        for (Postings p : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            candidates.add(p);
+            if (candidates.size() >= max * 8) break;
+        }
+        if (candidates.size() > max) {
+            candidates.sort(Comparator.comparingInt((Postings p) -> p.count).reversed());
+            return candidates.subList(0, max);
+        }
+        return candidates;
+    }
+
+    private float idf(int df) {
+        return (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+    }
+
+    /** One query term: a single posting list, or the union of a prefix's expansions scored by the best one. */
+    private final class Group {
+        final Cursor[] cursors;
+        final float[] idf;
+        final long cost;
+
+        Group(List<Postings> lists) {
+            cursors = new Cursor[lists.size()];
+            idf = new float[lists.size()];
+            long c = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                Postings p = lists.get(i);
+                cursors[i] = new Cursor(p);
+                idf[i] = Math.max(0.01f, InvertedIndex.this.idf(p.count));
+                c += p.count;
+            }
+            cost = c;
+        }
+
+        /** Moves every list to its first doc {@code >= target}; returns the smallest, or MAX_VALUE when exhausted. */
+        int advance(int target) {
+            int min = Integer.MAX_VALUE;
+            for (Cursor c : cursors) {
+                if (c.doc < target) c.advance(target);
+                if (c.doc < min) min = c.doc;
+            }
+            return min;
+        }
+
+        float score(int doc, float norm) {
+            float best = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i].doc != doc) continue;
+                float tf = cursors[i].tf;
+                best = Math.max(best, idf[i] * tf * (K1 + 1) / (tf + norm));
+            }
+            return best;
+        }
+    }
+
+    static final class Postings {
+        private byte[] data = new byte[4];
+        private int size;
+        private int count;
+        private int lastDoc = -1;
+
+        void add(int doc, int tf) {
+            if (size + 10 > data.length) data = Arrays.copyOf(data, Math.max(size + 10, data.length + (data.length >> 1)));
+            size = writeVarInt(data, size, doc - lastDoc);
+            size = writeVarInt(data, size, tf);
+            lastDoc = doc;
+            count++;
+        }
+
+        Postings remap(int[] remap) {
+            Postings out = new Postings();
+            Cursor c = new Cursor(this);
+            while (c.next()) {
+                int doc = remap[c.doc];
+                if (doc >= 0) out.add(doc, c.tf);
+            }
+            out.trim();
+            return out;
+        }
+
+        void trim() {
+            if (data.length > size) data = Arrays.copyOf(data, size);
+        }
+
+        private static int writeVarInt(byte[] buf, int pos, int value) {
+            while ((value & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+            return pos;
+        }
+    }
+
+    static final class Cursor {
+        private final Postings postings;
+        private int pos;
+        private int read;
+        int doc = -1;
+        int tf;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        boolean next() {
+            if (read == postings.count) {
+                doc = Integer.MAX_VALUE;
+                return false;
+            }
+            doc += readVarInt();
+            tf = readVarInt();
+            read++;
+            return true;
+        }
+
+        void advance(int target) {
+            while (doc < target) {
+                if (!next()) return;
+            }
+        }
+
+        private int readVarInt() {
+            byte[] buf = postings.data;
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /** Min-heap of the best {@code limit} (doc, score) pairs in two primitive arrays. */
+    private final class TopK {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        TopK(int limit) {
+            docs = new int[limit];
+            scores = new float[limit];
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Hit> drain() {
+            Hit[] hits = new Hit[size];
+            for (int i = size - 1; i >= 0; i--) {
+                hits[i] = new Hit(new UUID(docHi[docs[0]], docLo[docs[0]]), scores[0]);
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return List.of(hits);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, smallest = i;
+                if (left < size && scores[left] < scores[smallest]) smallest = left;
+                if (left + 1 < size && scores[left + 1] < scores[smallest]) smallest = left + 1;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int d = docs[a];
+            docs[a] = docs[b];
+            docs[b] = d;
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.library.flow.search;
+
+import com.library.flow.common.util.UuidIntMap;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup of short names (authors, publishers, book titles).
+ * <p>
+ * Every word of a name is padded as {@code "  word "} and cut into trigrams; each trigram keeps the
+ * increasing list of doc ids whose name contains it. A query within {@code k} edits of a name (or of
+ * a run of its words) still shares at least {@code trigrams - 3k} of its trigrams with it, because one
+ * edit breaks at most three. Candidates are counted by walking the query's trigram lists into a
+ * pooled per-doc byte counter - a sequential pass over plain {@code int[]} lists. Survivors are verified with an edit distance
+ * (adjacent transpositions count as one edit) that gives up as soon as it exceeds {@code k}.
+ * <p>
+ * As in {@link InvertedIndex}, replacing a name retires its doc id and appends a new one; retired ids
+ * are squeezed out by {@link #compactIfNeeded()}.
+ */
+final class NameIndex {
+
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+    /** Keeps the number of query trigrams, and so every per-doc count, below {@link Byte#MAX_VALUE}. */
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int MAX_POOLED_COUNTERS = 8;
+
+    record Match(UUID id, String name, int distance) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentLinkedQueue<byte[]> counters = new ConcurrentLinkedQueue<>();
+    private final HashMap<Long, Postings> grams = new HashMap<>();
+    private final UuidIntMap docIds = new UuidIntMap(1024);
+    private long[] docHi = new long[1024];
+    private long[] docLo = new long[1024];
+    private String[] names = new String[1024];
+    private int docCount;
+    private int liveCount;
+
+    /** Adds the name or replaces the previous one for {@code id}; a name without any word is just removed. */
+    void put(UUID id, String name) {
+        long[] keys = trigrams(TextAnalyzer.words(name));
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (keys.length == 0) return;
+            int doc = docCount++;
+            ensureDocCapacity(doc + 1);
+            for (long key : keys) grams.computeIfAbsent(key, k -> new Postings()).add(doc);
+            docHi[doc] = id.getMostSignificantBits();
+            docLo[doc] = id.getLeastSignificantBits();
+            names[doc] = name;
+            liveCount++;
+            docIds.put(id, doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Names within the edit budget for the query's length, closest first; ties go to the name whose
+     * length is nearest the query's. At most {@code maxCandidates} names (those sharing the most
+     * trigrams) are verified, which bounds the cost of very short or very common queries.
+     */
+    List<Match> search(String query, int limit, int maxCandidates) {
+        if (query.length() > MAX_QUERY_LENGTH) query = query.substring(0, MAX_QUERY_LENGTH);
+        List<String> words = TextAnalyzer.words(query);
+        if (words.isEmpty()) return List.of();
+        String folded = String.join(" ", words);
+        int maxEdits = maxEdits(folded.length());
+        long[] keys = trigrams(words);
+        int minShared = Math.max(1, keys.length - 3 * maxEdits);
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[keys.length];
+            int present = 0;
+            for (long key : keys) {
+                Postings p = grams.get(key);
+                if (p != null) lists[present++] = p;
+            }
+            if (present < minShared) return List.of();
+
+            Candidates candidates = count(lists, present, minShared);
+            List<Match> matches = new ArrayList<>();
+            for (int doc : candidates.best(minShared, present, maxCandidates)) {
+                int d = distance(folded, words.size(), names[doc], maxEdits);
+                if (d <= maxEdits) matches.add(new Match(new UUID(docHi[doc], docLo[doc]), names[doc], d));
+            }
+            int length = folded.length();
+            matches.sort(Comparator.comparingInt(Match::distance)
+                    .thenComparingInt(m -> Math.abs(m.name().length() - length))
+                    .thenComparing(Match::name));
+            return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Drops retired doc ids from every trigram list and renumbers the rest densely. */
+    boolean compactIfNeeded() {
+        lock.writeLock().lock();
+        try {
+            int dead = docCount - liveCount;
+            if (dead < MIN_DEAD_FOR_COMPACTION || dead * 4 < docCount) return false;
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int d = 0; d < docCount; d++) remap[d] = names[d] != null ? next++ : -1;
+
+            Iterator<Map.Entry<Long, Postings>> it = grams.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Postings> e = it.next();
+                Postings compacted = e.getValue().remap(remap);
+                if (compacted.size == 0) it.remove();
+                else e.setValue(compacted);
+            }
+
+            int capacity = Math.max(1024, next);
+            long[] hi = new long[capacity];
+            long[] lo = new long[capacity];
+            String[] live = new String[capacity];
+            docIds.clear();
+            for (int d = 0; d < docCount; d++) {
+                int nd = remap[d];
+                if (nd < 0) continue;
+                hi[nd] = docHi[d];
+                lo[nd] = docLo[d];
+                live[nd] = names[d];
+                docIds.put(new UUID(docHi[d], docLo[d]), nd);
+            }
+            docHi = hi;
+            docLo = lo;
+            names = live;
+            docCount = next;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Releases the spare room trigram lists keep for appends; worth doing after a bulk build. */
+    void trimToSize() {
+        lock.writeLock().lock();
+        try {
+            for (Postings p : grams.values()) p.trim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Edits a query may be away from a name: none for one or two characters, up to three for long ones. */
+    static int maxEdits(int length) {
+        if (length <= 2) return 0;
+        if (length <= 5) return 1;
+        if (length <= 12) return 2;
+        return 3;
+    }
+
+    /**
+     * Edit distance between {@code a} and {@code b} with adjacent transpositions (optimal string
+     * alignment), or {@code max + 1} as soon as it is known to exceed {@code max}. Only the diagonal
+     * band of width {@code 2 * max + 1} is computed.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int over = max + 1;
+        int[] before = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = Math.min(j, over);
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max), to = Math.min(m, i + max);
+            cur[0] = Math.min(i, over);
+            if (from > 1) cur[from - 1] = over;
+            int rowMin = from > 1 ? over : cur[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                char cb = b.charAt(j - 1);
+                int v = Math.min(Math.min(prev[j], cur[j - 1]) + 1, prev[j - 1] + (ca == cb ? 0 : 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) v = Math.min(v, before[j - 2] + 1);
+                cur[j] = Math.min(v, over);
+                if (cur[j] < rowMin) rowMin = cur[j];
+            }
+            if (to < m) cur[to + 1] = over;
+            if (rowMin > max) return over;
+            int[] t = before;
+            before = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m];
+    }
+
+    /** Closest distance between the query and the whole name or any run of as many words as the query has. */
+    private static int distance(String query, int queryWords, String name, int max) {
+        List<String> words = TextAnalyzer.words(name);
+        if (words.size() <= queryWords) return boundedDistance(query, String.join(" ", words), max);
+        int best = max + 1;
+        for (int i = 0; i + queryWords <= words.size() && best > 0; i++) {
+            best = Math.min(best, boundedDistance(query, String.join(" ", words.subList(i, i + queryWords)), max));
+        }
+        return best;
+    }
+
+    /** Distinct padded trigrams of the words, each packed as three 16-bit chars into a long. */
+    private static long[] trigrams(List<String> words) {
+        int total = 0;
+        for (String w : words) total += w.length() + 1;
+        long[] keys = new long[total];
+        int n = 0;
+        for (String w : words) {
+            String padded = "  " + w + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                keys[n++] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(keys);
+        int distinct = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) keys[distinct++] = keys[i];
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    /**
+     * Live docs that are in at least {@code minShared} of the lists, with how many they are in. A doc
+     * is picked up the moment its count reaches the threshold, and the counter is cleared by walking
+     * the same lists again, so the work is proportional to the postings read, not to the index size.
+     */
+    private Candidates count(Postings[] lists, int present, int minShared) {
+        byte[] counts = counters.poll();
+        if (counts == null || counts.length < docCount) counts = new byte[docHi.length];
+        Candidates out = new Candidates(64);
+        for (int i = 0; i < present; i++) {
+            int[] docs = lists[i].docs;
+            for (int j = 0, n = lists[i].size; j < n; j++) {
+                if (++counts[docs[j]] == minShared) out.add(docs[j], 0);
+            }
+        }
+        for (int c = 0; c < out.size; c++) {
+            int doc = out.docs[c];
+            out.counts[c] = names[doc] != null ? counts[doc] : 0;
+        }
+        for (int i = 0; i < present; i++) {
+            int[] docs = lists[i].docs;
+            for (int j = 0, n = lists[i].size; j < n; j++) counts[docs[j]] = 0;
+        }
+        if (counters.size() < MAX_POOLED_COUNTERS) counters.offer(counts);
+        return out;
+    }
+
+    private boolean removeLocked(UUID id) {
+        int doc = docIds.remove(id);
+        if (doc == UuidIntMap.MISSING) return false;
+        names[doc] = null;
+        liveCount--;
+        return true;
+    }
+
+    private void ensureDocCapacity(int needed) {
+        if (needed <= docHi.length) return;
+        int capacity = Math.max(needed, docHi.length + (docHi.length >> 1));
+        docHi = Arrays.copyOf(docHi, capacity);
+        docLo = Arrays.copyOf(docLo, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+
+    /** Candidate docs with the number of query trigrams each one shares (zero once it is known to be dead). */
+    private static final class Candidates {
+        private int[] docs;
+        private int[] counts;
+        private int size;
+
+        Candidates(int capacity) {
+            docs = new int[capacity];
+            counts = new int[docs.length];
+        }
+
+        void add(int doc, int count) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size << 1);
+                counts = Arrays.copyOf(counts, size << 1);
+            }
+            docs[size] = doc;
+            counts[size++] = count;
+        }
+
+        /** Up to {@code max} docs with at least {@code min} shared trigrams, the most shared first. */
+        int[] best(int min, int most, int max) {
+            int[] perCount = new int[most + 2];
+            for (int c = 0; c < size; c++) {
+                if (counts[c] >= min) perCount[counts[c]]++;
+            }
+            int cutoff = most + 1, taken = 0;
+            while (cutoff > min && taken + perCount[cutoff - 1] <= max) taken += perCount[--cutoff];
+            int partial = cutoff > min ? max - taken : 0;
+            int[] out = new int[taken + partial];
+            int n = 0;
+            for (int c = 0; c < size; c++) {
+                if (counts[c] >= cutoff) out[n++] = docs[c];
+                else if (partial > 0 && counts[c] == cutoff - 1) {
+                    out[n++] = docs[c];
+                    partial--;
+                }
+            }
+            return out;
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) docs = Arrays.copyOf(docs, size + Math.max(2, size >> 1));
+            docs[size++] = doc;
+        }
+
+        Postings remap(int[] remap) {
+            Postings out = new Postings();
+            out.docs = new int[Math.max(2, size)];
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) out.docs[out.size++] = doc;
+            }
+            out.trim();
+            return out;
+        }
+
+        void trim() {
+            if (docs.length > size) docs = Arrays.copyOf(docs, Math.max(1, size));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.library.flow.search;
+
+import com.library.flow.common.dto.NameMatch;
+import com.library.flow.common.error.custom.ServiceUnavailableException;
+import com.library.flow.service.BookChangeFeed;
+import com.library.flow.service.BookChangeListener;
+import com.library.flow.service.CacheInvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typo-tolerant lookup of author names, publisher names and book titles, each held in a {@link NameIndex}.
+ * <p>
+ * The indexes are loaded at startup from a streaming scan of their table, and lookups answer 503 until
+ * then. Afterwards changed rows are re-read once the writing transaction commits: authors and publishers
+ * are reported by their services (and by book imports that create them) and reach other instances over
+ * the {@link CacheInvalidationBus}; titles follow {@link BookChangeFeed}. All three indexes share one
+ * {@link ReadModelLoader} thread, which applies the changes in the order they were reported.
+ */
+@Service
+@Slf4j
+public class NameLookupService implements BookChangeListener {
+
+    static final String AUTHOR_TOPIC = "authorNames";
+    static final String PUBLISHER_TOPIC = "publisherNames";
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final CacheInvalidationBus bus;
+    private final ReadModelLoader indexer;
+    private final int maxCandidates;
+    private final int fetchSize;
+    private final Source authors;
+    private final Source publishers;
+    private final Source titles;
+
+    public NameLookupService(EntityManager em, PlatformTransactionManager transactionManager,
+                             CacheInvalidationBus bus, BookChangeFeed feed, MeterRegistry registry,
+                             @Value("${library.lookup.enabled:true}") boolean enabled,
+                             @Value("${library.lookup.maxCandidates:500}") int maxCandidates,
+                             @Value("${library.lookup.fetchSize:5000}") int fetchSize) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.bus = bus;
+        this.maxCandidates = maxCandidates;
+        this.fetchSize = fetchSize;
+        this.indexer = new ReadModelLoader("name-lookup-indexer", enabled);
+        this.authors = new Source("author", "Author", "name", registry);
+        this.publishers = new Source("publisher", "Publisher", "name", registry);
+        this.titles = new Source("title", "Book", "title", registry);
+        bus.onInvalidate(AUTHOR_TOPIC, ids -> changed(authors, ids));
+        bus.onInvalidate(PUBLISHER_TOPIC, ids -> changed(publishers, ids));
+        feed.register(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        indexer.start(() -> rebuild(authors), () -> rebuild(publishers), () -> rebuild(titles));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        indexer.shutdown();
+    }
+
+    public List<NameMatch> lookupAuthors(String query, int limit) {
+        return lookup(authors, query, limit);
+    }
+
+    public List<NameMatch> lookupPublishers(String query, int limit) {
+        return lookup(publishers, query, limit);
+    }
+
+    public List<NameMatch> lookupTitles(String query, int limit) {
+        return lookup(titles, query, limit);
+    }
+
+    /** Call from inside the transaction that created, renamed or deleted the authors. */
+    public void authorsChanged(Collection<UUID> ids) {
+        publish(authors, AUTHOR_TOPIC, ids);
+    }
+
+    /** Call from inside the transaction that created, renamed or deleted the publishers. */
+    public void publishersChanged(Collection<UUID> ids) {
+        publish(publishers, PUBLISHER_TOPIC, ids);
+    }
+
+    @Override
+    public void booksChanged(Collection<UUID> bookIds) {
+        changed(titles, List.copyOf(bookIds));
+    }
+
+    @Override
+    public void reset() {
+        indexer.submit(() -> rebuild(titles));
+    }
+
+    private List<NameMatch> lookup(Source source, String query, int limit) {
+        if (!source.ready) throw new ServiceUnavailableException(source.kind + " lookup is still being built");
+        long started = System.nanoTime();
+        List<NameIndex.Match> matches = source.index.search(query, limit, maxCandidates);
+        long tookNanos = System.nanoTime() - started;
+        source.queryTimer.record(tookNanos, TimeUnit.NANOSECONDS);
+        log.debug("lookup: kind={}, query='{}', matches={}, micros={}", source.kind, query, matches.size(), tookNanos / 1000);
+        List<NameMatch> out = new ArrayList<>(matches.size());
+        for (NameIndex.Match m : matches) out.add(new NameMatch(m.id(), m.name(), m.distance()));
+        return out;
+    }
+
+    private void publish(Source source, String topic, Collection<UUID> ids) {
+        if (ids.isEmpty()) return;
+        List<UUID> copy = List.copyOf(ids);
+        bus.publish(topic, copy);
+        indexer.afterCommit(() -> reload(source, copy));
+    }
+
+    /** {@code ids == null} means the bus may have missed messages; rebuild the whole index. */
+    private void changed(Source source, List<UUID> ids) {
+        indexer.submit(ids == null ? () -> rebuild(source) : () -> reload(source, ids));
+    }
+
+    private void rebuild(Source source) {
+        long started = System.nanoTime();
+        try {
+            NameIndex fresh = new NameIndex();
+            Long rows = readOnlyTx.execute(status -> {
+                long n = 0;
+                try (ScrollableResults<Object[]> rs = em.unwrap(Session.class)
+                        .createQuery(source.select(), Object[].class)
+                        .setFetchSize(fetchSize)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (rs.next()) {
+                        Object[] row = rs.get();
+                        if (row[1] != null) fresh.put((UUID) row[0], (String) row[1]);
+                        n++;
+                    }
+                }
+                return n;
+            });
+            fresh.trimToSize();
+            source.index = fresh;
+            source.ready = true;
+            log.info("Name lookup built: kind={}, names={}, tookMs={}", source.kind, rows, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Name lookup build failed: kind={}, reason={}", source.kind, ex.getMessage(), ex);
+        }
+    }
+
+    private void reload(Source source, List<UUID> ids) {
+        NameIndex target = source.index;
+        ReadModelLoader.inBatches(ids, batch -> {
+            List<Object[]> rows = readOnlyTx.execute(status -> em.createQuery(
+                            source.select() + " where e.id in :ids", Object[].class)
+                    .setParameter("ids", batch)
+                    .getResultList());
+            Set<UUID> missing = new HashSet<>(batch);
+            for (Object[] row : rows) {
+                if (row[1] != null) {
+                    target.put((UUID) row[0], (String) row[1]);
+                    missing.remove((UUID) row[0]);
+                }
+            }
+            for (UUID id : missing) target.remove(id);
+        });
+        if (target.compactIfNeeded()) log.info("Name lookup compacted: kind={}, names={}", source.kind, target.size());
+    }
+
+    /** One lookup: the entity and attribute it is loaded from, its index and metrics. */
+    private static final class Source {
+        final String kind;
+        final String entity;
+        final String attribute;
+        final Timer queryTimer;
+        volatile NameIndex index = new NameIndex();
+        volatile boolean ready;
+
+        Source(String kind, String entity, String attribute, MeterRegistry registry) {
+            this.kind = kind;
+            this.entity = entity;
+            this.attribute = attribute;
+            this.queryTimer = Timer.builder("library.lookup.query")
+                    .description("Time to find and rank fuzzy name matches in memory")
+                    .tag("kind", kind)
+                    .register(registry);
+            Gauge.builder("library.lookup.index.names", this, s -> s.index.size())
+                    .description("Names held by the fuzzy lookup")
+                    .tag("kind", kind)
+                    .register(registry);
+        }
+
+        String select() {
+            return "select e.id, e." + attribute + " from " + entity + " e";
+        }
+    }
+}
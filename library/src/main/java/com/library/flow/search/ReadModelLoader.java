@@ -0,0 +1,87 @@
+package com.library.flow.search;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The lifecycle every in-memory read model in this package shares: one background thread runs all writes to
+ * the model in the order the changes were reported, the first load is queued once the application is
+ * ready, and changes reported before that are dropped because the load will see them anyway. A rebuild
+ * and the updates that arrive during it therefore cannot overtake each other. When the model is disabled
+ * nothing is ever queued.
+ */
+final class ReadModelLoader {
+
+    /** Ids re-read per query when changed rows are reloaded. */
+    static final int RELOAD_BATCH = 500;
+
+    private final ScheduledExecutorService thread;
+    private final boolean enabled;
+    private volatile boolean started;
+
+    ReadModelLoader(String threadName, boolean enabled) {
+        this.enabled = enabled;
+        this.thread = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Queues the initial loads; from now on changes are queued behind them. */
+    void start(Runnable... loads) {
+        if (!enabled) return;
+        started = true;
+        for (Runnable load : loads) thread.execute(load);
+    }
+
+    /** Queues {@code update} behind everything reported before it; ignored before {@link #start}. */
+    void submit(Runnable update) {
+        if (enabled && started) thread.execute(update);
+    }
+
+    /** {@link #submit}s {@code update} once the current transaction commits, or at once outside a transaction. */
+    void afterCommit(Runnable update) {
+        onCommit(() -> submit(update));
+    }
+
+    /** Runs {@code action} on the calling thread once the current transaction commits, or at once outside one. */
+    static void onCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs {@code task} on the same thread after {@code delayMillis}. Meant for work that is not an update
+     * of the model, so unlike {@link #submit} it also runs before {@link #start}.
+     */
+    void schedule(Runnable task, long delayMillis) {
+        if (enabled) thread.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() {
+        thread.shutdownNow();
+    }
+
+    /** Hands {@code ids} to {@code reload} in slices of {@link #RELOAD_BATCH}. */
+    static void inBatches(List<UUID> ids, Consumer<List<UUID>> reload) {
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH) {
+            reload.accept(ids.subList(from, Math.min(ids.size(), from + RELOAD_BATCH)));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.flow.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns text into index terms: accents folded, lower-cased, split on anything that is not a letter
+ * or digit, common English stop words dropped. A hyphen between two digits is skipped rather than
+ * split on, so an ISBN such as {@code 978-0-14-044913-6} becomes the single term {@code 9780140449136}.
+ */
+final class TextAnalyzer {
+
+    static final int MAX_TERM_LENGTH = 40;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "to", "was", "with");
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {}
+
+    static List<String> terms(String text) {
+        return split(text, true);
+    }
+
+    /** The same words as {@link #terms} but with stop words kept, for matching whole names. */
+    static List<String> words(String text) {
+        return split(text, false);
+    }
+
+    private static List<String> split(String text, boolean dropStopWords) {
+        List<String> out = new ArrayList<>();
+        if (text == null || text.isEmpty()) return out;
+        String folded = isAscii(text)
+                ? text.toLowerCase(Locale.ROOT)
+                : MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (c == '-' && term.length() > 0 && Character.isDigit(term.charAt(term.length() - 1))
+                    && i + 1 < folded.length() && Character.isDigit(folded.charAt(i + 1))) {
+                continue;
+            } else {
+                emit(term, out, dropStopWords);
+            }
+        }
+        emit(term, out, dropStopWords);
+        return out;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private static void emit(StringBuilder term, List<String> out, boolean dropStopWords) {
+        if (term.isEmpty()) return;
+        String t = term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term.toString();
+        term.setLength(0);
+        if (!dropStopWords || !STOP_WORDS.contains(t)) out.add(t);
+    }
+}
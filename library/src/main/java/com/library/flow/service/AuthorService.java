@@ -1,9 +1,12 @@
 package com.library.flow.service;
 
 import com.library.flow.common.dto.CreateAuthorRequest;
+import com.library.flow.common.dto.NamedRef;
 import com.library.flow.common.error.custom.NotFoundException;
 import com.library.flow.entity.Author;
 import com.library.flow.repository.AuthorRepository;
+import com.library.flow.repository.BookRepository;
+import com.library.flow.search.NameLookupService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +14,7 @@ import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -18,6 +22,10 @@ import java.util.UUID;
 @Slf4j
 public class AuthorService {
     private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final CatalogCache catalogCache;
+    private final BookChangeFeed bookChangeFeed;
+    private final NameLookupService nameLookup;
 
     @Transactional
     public UUID createAuthor(CreateAuthorRequest request) {
@@ -25,6 +33,7 @@ public class AuthorService {
         Author author = new Author();
         author.setName(request.name());
         authorRepository.save(author);
+        nameLookup.authorsChanged(List.of(author.getId()));
         log.info("createAuthor: saved id={}", author.getId());
         return author.getId();
     }
@@ -39,9 +48,16 @@ public class AuthorService {
         });
         log.debug("updateAuthorInfo: name -> {}", author.getName());
         a.setName(author.getName());
+        evict(id);
         log.info("updateAuthorInfo: done id={}", id);
     }
 
+    public NamedRef getAuthor(UUID id) {
+        return catalogCache.get(CatalogCache.AUTHORS, id, () -> authorRepository.findById(id)
+                .map(a -> new NamedRef(a.getId(), a.getName()))
+                .orElseThrow(() -> new NotFoundException("author", id)));
+    }
+
     public Page<Author> getBookAuthors(Pageable p){
         log.info("getBookAuthors: page={}, size={}", p.getPageNumber(), p.getPageSize());
         return authorRepository.findAll(p);
@@ -50,7 +66,17 @@ public class AuthorService {
     @Transactional
     public void delete(UUID id){
         log.info("deleteAuthor: id={}", id);
+        evict(id);
         authorRepository.deleteById(id);
         log.info("deleteAuthor: deleted id={}", id);
     }
+
+    /** Book details embed author names, so the author's books go too. */
+    private void evict(UUID id) {
+        catalogCache.evict(CatalogCache.AUTHORS, id);
+        nameLookup.authorsChanged(List.of(id));
+        List<UUID> bookIds = bookRepository.findIdsByAuthorId(id);
+        catalogCache.evictBooks(bookIds);
+        bookChangeFeed.booksChanged(bookIds);
+    }
 }
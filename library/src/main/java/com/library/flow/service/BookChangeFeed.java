@@ -0,0 +1,82 @@
+package com.library.flow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tells in-memory read models (search index and the like) which books changed. Listeners on this
+ * instance are called after the writing transaction commits; other instances hear about the change
+ * through {@link CacheInvalidationBus}, which also asks for a {@link BookChangeListener#reset()} when
+ * messages may have been lost.
+ * <p>
+ * A change touching more than {@code library.cache.bulkEvictThreshold} books (renaming a large
+ * publisher, say) is sent as one clear message and turns into a {@link BookChangeListener#reset()}
+ * everywhere, the same cut-off {@link CatalogCache#evictBooks} uses. Thousands of id messages inside
+ * the writing transaction, each followed by a re-read of every book on every instance, would cost more
+ * than one rebuild.
+ */
+@Component
+@Slf4j
+public class BookChangeFeed {
+
+    static final String TOPIC = "bookChanges";
+
+    private final CacheInvalidationBus bus;
+    private final int bulkThreshold;
+    private final List<BookChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public BookChangeFeed(CacheInvalidationBus bus,
+                          @Value("${library.cache.bulkEvictThreshold:5000}") int bulkThreshold) {
+        this.bus = bus;
+        this.bulkThreshold = bulkThreshold;
+        bus.onInvalidate(TOPIC, this::dispatch);
+    }
+
+    public void register(BookChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Call from inside the transaction that changed the books (or after it, when there is none). */
+    public void booksChanged(Collection<UUID> bookIds) {
+        if (bookIds.isEmpty()) return;
+        List<UUID> ids;
+        if (bookIds.size() > bulkThreshold) {
+            log.info("booksChanged: {} books, asking for a rebuild instead", bookIds.size());
+            ids = null;
+            bus.publishClear(TOPIC);
+        } else {
+            ids = List.copyOf(bookIds);
+            bus.publish(TOPIC, ids);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(ids);
+            }
+        });
+    }
+
+    /** {@code ids == null} means anything may have changed. */
+    private void dispatch(List<UUID> ids) {
+        for (BookChangeListener listener : listeners) {
+            try {
+                if (ids == null) listener.reset();
+                else listener.booksChanged(ids);
+            } catch (RuntimeException ex) {
+                log.warn("Book change listener failed: listener={}, reason={}", listener.getClass().getSimpleName(), ex.getMessage());
+            }
+        }
+    }
+}
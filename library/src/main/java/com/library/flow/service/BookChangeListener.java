@@ -0,0 +1,16 @@
+package com.library.flow.service;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * An in-memory read model over the catalog that follows book changes through {@link BookChangeFeed}.
+ */
+public interface BookChangeListener {
+
+    /** The given books were added, changed or deleted; reload whatever is still there. */
+    void booksChanged(Collection<UUID> bookIds);
+
+    /** Changes may have been missed (another instance could not be heard); rebuild from scratch. */
+    void reset();
+}
@@ -0,0 +1,196 @@
+package com.library.flow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.flow.common.dto.BookExportRow;
+import com.library.flow.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Streams the whole catalog (or everything created since a point in time) as NDJSON or CSV.
+ * Books are read through a forward-only server-side cursor with a fixed fetch size; names of
+ * authors and categories are resolved per chunk, and the persistence context is cleared after
+ * every chunk, so memory stays flat whatever the catalog size. The same scan feeds the in-memory
+ * read models that are built from the whole catalog at startup.
+ * <p>
+ * The CSV uses the import's column names, with categories as {@code |}-separated ids, so an export
+ * can be imported again; the extra {@code id} and {@code createdAt} columns are ignored there.
+ */
+@Service
+@Slf4j
+public class BookExportService {
+
+    private static final String CSV_HEADER =
+            "id,title,isbn,publicationYear,language,edition,summary,coverImageUrl,createdAt,totalCopies,availableCopies,publisher,authors,categoryIds\n";
+
+    private static final String COLUMNS =
+            "b.id, b.title, b.isbn, b.publicationYear, b.language, b.edition, b.summary, " +
+            "b.coverImageUrl, b.createdAt, b.totalCopies, b.availableCopies, p.name ";
+
+    private final EntityManager em;
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    @Value("${library.export.fetchSize:500}")
+    private int fetchSize;
+
+    public BookExportService(EntityManager em, BookRepository bookRepository, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.bookRepository = bookRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public long export(OutputStream out, boolean csv, Instant since) {
+        long started = System.nanoTime();
+        long written;
+        try {
+            if (csv) out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            written = scan(since, chunk -> {
+                try {
+                    writeChunk(chunk, out, csv);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.info("exportBooks: rows={}, csv={}, since={}, tookMs={}", written, csv, since, (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+
+    /**
+     * Walks every book created at or after {@code since} (all when null) in createdAt order and hands
+     * them to {@code sink} in chunks of the fetch size. A chunk must not be kept after the call returns.
+     */
+    public long scan(Instant since, Consumer<List<BookExportRow>> sink) {
+        Long count = readOnlyTx.execute(status -> {
+            Session session = em.unwrap(Session.class);
+            long n = 0;
+            try (ScrollableResults<Object[]> rows = session.createQuery(
+                            "select " + COLUMNS + "from Book b left join b.publisher p where b.createdAt >= :since " +
+                            "order by b.createdAt, b.id", Object[].class)
+                    .setParameter("since", since != null ? since : Instant.EPOCH)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<Object[]> chunk = new ArrayList<>(fetchSize);
+                while (rows.next()) {
+                    chunk.add(rows.get());
+                    if (chunk.size() == fetchSize) {
+                        n += emit(chunk, sink);
+                        session.clear();
+                    }
+                }
+                n += emit(chunk, sink);
+            }
+            return n;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /** The same rows as {@link #scan} for the given ids; ids that no longer exist are simply absent. */
+    public List<BookExportRow> loadRows(Collection<UUID> ids) {
+        if (ids.isEmpty()) return List.of();
+        return readOnlyTx.execute(status -> {
+            List<Object[]> rows = em.createQuery(
+                            "select " + COLUMNS + "from Book b left join b.publisher p where b.id in :ids", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            List<BookExportRow> out = new ArrayList<>(rows.size());
+            emit(new ArrayList<>(rows), out::addAll);
+            return out;
+        });
+    }
+
+    private int emit(List<Object[]> chunk, Consumer<List<BookExportRow>> sink) {
+        if (chunk.isEmpty()) return 0;
+        List<UUID> ids = new ArrayList<>(chunk.size());
+        for (Object[] row : chunk) ids.add((UUID) row[0]);
+        Map<UUID, List<String>> authors = byBook(bookRepository.findAuthorRefs(ids), 2);
+        List<Object[]> categoryRefs = bookRepository.findCategoryRefs(ids);
+        Map<UUID, List<String>> categories = byBook(categoryRefs, 2);
+        Map<UUID, List<UUID>> categoryIds = byBook(categoryRefs, 1);
+
+        List<BookExportRow> rows = new ArrayList<>(chunk.size());
+        for (Object[] r : chunk) {
+            UUID id = (UUID) r[0];
+            rows.add(new BookExportRow(id, (String) r[1], (String) r[2], (Integer) r[3], (String) r[4],
+                    (Integer) r[5], (String) r[6], (String) r[7], (Instant) r[8], (Integer) r[9], (Integer) r[10],
+                    (String) r[11], authors.getOrDefault(id, List.of()), categories.getOrDefault(id, List.of()),
+                    categoryIds.getOrDefault(id, List.of())));
+        }
+        sink.accept(rows);
+        int n = chunk.size();
+        chunk.clear();
+        return n;
+    }
+
+    private void writeChunk(List<BookExportRow> rows, OutputStream out, boolean csv) throws IOException {
+        for (BookExportRow row : rows) {
+            if (csv) {
+                out.write(toCsv(row).getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    /** Groups column {@code column} of (book id, id, name) refs by book. */
+    @SuppressWarnings("unchecked")
+    private <T> Map<UUID, List<T>> byBook(List<Object[]> refs, int column) {
+        Map<UUID, List<T>> byBook = new HashMap<>();
+        for (Object[] ref : refs) byBook.computeIfAbsent((UUID) ref[0], k -> new ArrayList<>()).add((T) ref[column]);
+        return byBook;
+    }
+
+    private String toCsv(BookExportRow r) {
+        StringBuilder sb = new StringBuilder(256);
+        field(sb, r.id()).append(',');
+        field(sb, r.title()).append(',');
+        field(sb, r.isbn()).append(',');
+        field(sb, r.publicationYear()).append(',');
+        field(sb, r.language()).append(',');
+        field(sb, r.edition()).append(',');
+        field(sb, r.summary()).append(',');
+        field(sb, r.coverImageUrl()).append(',');
+        field(sb, r.createdAt()).append(',');
+        field(sb, r.totalCopies()).append(',');
+        field(sb, r.availableCopies()).append(',');
+        field(sb, r.publisher()).append(',');
+        field(sb, String.join("|", r.authors())).append(',');
+        StringJoiner categoryIds = new StringJoiner("|");
+        for (UUID id : r.categoryIds()) categoryIds.add(id.toString());
+        field(sb, categoryIds).append('\n');
+        return sb.toString();
+    }
+
+    private StringBuilder field(StringBuilder sb, Object value) {
+        if (value == null) return sb;
+        String v = value.toString();
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) return sb.append(v);
+        return sb.append('"').append(v.replace("\"", "\"\"")).append('"');
+    }
+}
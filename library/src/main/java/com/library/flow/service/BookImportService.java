@@ -0,0 +1,361 @@
+package com.library.flow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.flow.common.dto.BookImportReport;
+import com.library.flow.common.dto.BookImportRow;
+import com.library.flow.common.dto.ImportRowError;
+import com.library.flow.common.util.UuidV7;
+import com.library.flow.search.NameLookupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Streaming bulk import of catalog rows (CSV or NDJSON). Rows are parsed one at a time, buffered
+ * into chunks of {@code library.import.chunkSize} and each chunk is written in its own transaction
+ * with JDBC batches for books and join rows. Authors and publishers are matched by name through
+ * lookup maps that fill up as the import runs, so each distinct name hits the database once.
+ * Categories must already exist; a row naming an unknown category id is reported and not written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookImportService {
+
+    private static final String INSERT_BOOK =
+            "insert into book(id, title, isbn, publication_year, language, edition, summary, cover_image_url, " +
+            "created_at, total_copies, available_copies, publisher_id, version) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0) on conflict do nothing";
+    private static final String INSERT_BOOK_AUTHOR = "insert into book_author(book_id, author_id) values (?, ?)";
+    private static final String INSERT_BOOK_CATEGORY = "insert into book_category(book_id, category_id) values (?, ?)";
+    private static final String UPSERT_NAMES =
+            "with input(id, name) as (select * from unnest(?::uuid[], ?::text[])), " +
+            "ins as (insert into %1$s(id, name, version) select id, name, 0 from input on conflict (name) do nothing returning id, name) " +
+            "select id, name, true as created from ins " +
+            "union all select t.id, t.name, false from %1$s t join input i on t.name = i.name";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final BookChangeFeed bookChangeFeed;
+    private final NameLookupService nameLookup;
+
+    @Value("${library.import.chunkSize:1000}")
+    private int chunkSize;
+
+    @Value("${library.import.maxReportedErrors:1000}")
+    private int maxReportedErrors;
+
+    public BookImportReport importCsv(InputStream body) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (header == null) throw new IllegalArgumentException("empty import");
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) columns.put(header.get(i).replace("\uFEFF", "").trim(), i);
+        if (!columns.containsKey("title")) throw new IllegalArgumentException("csv header must contain a title column");
+
+        Run run = new Run();
+        List<String> record;
+        while (true) {
+            try {
+                record = reader.next();
+            } catch (IOException ex) {
+                run.fail(run.rowsRead + 1, ex.getMessage());
+                break;
+            }
+            if (record == null) break;
+            long rowNo = ++run.rowsRead;
+            try {
+                run.add(rowNo, fromCsv(record, columns));
+            } catch (IllegalArgumentException ex) {
+                run.fail(rowNo, ex.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    public BookImportReport importNdjson(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Run run = new Run();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            long rowNo = ++run.rowsRead;
+            try {
+                run.add(rowNo, objectMapper.readValue(line, BookImportRow.class));
+            } catch (IOException ex) {
+                run.fail(rowNo, "malformed JSON");
+            }
+        }
+        return run.finish();
+    }
+
+    private BookImportRow fromCsv(List<String> record, Map<String, Integer> columns) {
+        return new BookImportRow(
+                text(record, columns, "title"),
+                text(record, columns, "isbn"),
+                number(record, columns, "publicationYear"),
+                text(record, columns, "language"),
+                number(record, columns, "edition"),
+                text(record, columns, "summary"),
+                text(record, columns, "coverImageUrl"),
+                number(record, columns, "totalCopies"),
+                number(record, columns, "availableCopies"),
+                text(record, columns, "publisher"),
+                list(text(record, columns, "authors")),
+                list(text(record, columns, "categoryIds")).stream().map(this::uuid).toList()
+        );
+    }
+
+    private String text(List<String> record, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        if (i == null || i >= record.size()) return null;
+        String v = record.get(i).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private Integer number(List<String> record, Map<String, Integer> columns, String name) {
+        String v = text(record, columns, name);
+        if (v == null) return null;
+        try {
+            return Integer.valueOf(v);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private List<String> list(String v) {
+        if (v == null) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String part : v.split("\\|")) {
+            if (!part.isBlank()) out.add(part.trim());
+        }
+        return out;
+    }
+
+    private UUID uuid(String v) {
+        try {
+            return UUID.fromString(v);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("invalid category id " + v);
+        }
+    }
+
+    private static String validate(BookImportRow r) {
+        if (r.title() == null || r.title().isBlank()) return "Title is required";
+        if (r.title().length() > 240) return "Title must not exceed 240 characters";
+        if (r.isbn() != null && r.isbn().length() > 20) return "ISBN must not exceed 20 characters";
+        if (r.publicationYear() == null) return "Publication year is required";
+        if (r.publicationYear() < 1450 || r.publicationYear() > 2100) return "Publication year must be valid";
+        if (r.language() == null || r.language().isBlank()) return "Language is required";
+        if (r.summary() != null && r.summary().length() > 2000) return "Summary must not exceed 2000 characters";
+        if (r.totalCopies() == null) return "Total copies is required";
+        if (r.totalCopies() < 0) return "Total copies must be >= 0";
+        if (r.availableCopies() != null && r.availableCopies() < 0) return "Available copies must be >= 0";
+        return null;
+    }
+
+    private record Pending(long rowNo, UUID id, BookImportRow row) {}
+
+    /**
+     * State of one import: the current chunk, the name lookups and the counters for the report.
+     */
+    private final class Run {
+        final long started = System.nanoTime();
+        final Map<String, UUID> authorIds = new HashMap<>();
+        final Map<String, UUID> publisherIds = new HashMap<>();
+        Set<UUID> categoryIds;
+        final List<Pending> chunk = new ArrayList<>();
+        final List<ImportRowError> errors = new ArrayList<>();
+        long rowsRead;
+        long imported;
+        long failed;
+
+        void add(long rowNo, BookImportRow row) {
+            String problem = validate(row);
+            if (problem != null) {
+                fail(rowNo, problem);
+                return;
+            }
+            chunk.add(new Pending(rowNo, UuidV7.next(), row));
+            if (chunk.size() >= chunkSize) flush();
+        }
+
+        void fail(long rowNo, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) errors.add(new ImportRowError(rowNo, message));
+        }
+
+        BookImportReport finish() {
+            flush();
+            long tookMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("importBooks: done rows={}, imported={}, failed={}, tookMs={}", rowsRead, imported, failed, tookMs);
+            return new BookImportReport(rowsRead, imported, failed, List.copyOf(errors), failed > errors.size(), tookMs);
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) return;
+            List<ImportRowError> rejected = new ArrayList<>();
+            try {
+                // counted only once the chunk has committed
+                Integer written = tx.execute(status -> writeChunk(rejected));
+                imported += written;
+                for (ImportRowError e : rejected) fail(e.row(), e.message());
+            } catch (RuntimeException ex) {
+                // names created inside the rolled back transaction are gone again
+                authorIds.clear();
+                publisherIds.clear();
+                log.warn("importBooks: chunk of {} rows failed: {}", chunk.size(), ex.getMessage());
+                Set<Long> reported = new HashSet<>();
+                for (ImportRowError e : rejected) {
+                    fail(e.row(), e.message());
+                    reported.add(e.row());
+                }
+                for (Pending p : chunk) {
+                    if (!reported.contains(p.rowNo())) fail(p.rowNo(), "chunk rejected by database");
+                }
+            }
+            chunk.clear();
+            log.info("importBooks: progress rows={}, imported={}, failed={}", rowsRead, imported, failed);
+        }
+
+        /**
+         * Writes the chunk and returns how many books it inserted. Rows that cannot be written are
+         * added to {@code rejected} and reported by the caller, whether or not the chunk commits.
+         */
+        private int writeChunk(List<ImportRowError> rejected) {
+            if (categoryIds == null) {
+                categoryIds = new HashSet<>(jdbc.queryForList("select id from category", UUID.class));
+            }
+            List<Pending> rows = new ArrayList<>(chunk.size());
+            for (Pending p : chunk) {
+                UUID unknown = unknownCategory(p.row());
+                if (unknown != null) {
+                    rejected.add(new ImportRowError(p.rowNo(), "unknown category id " + unknown));
+                } else {
+                    rows.add(p);
+                }
+            }
+            if (rows.isEmpty()) return 0;
+            Set<String> publisherNames = new HashSet<>();
+            Set<String> authorNames = new HashSet<>();
+            for (Pending p : rows) {
+                if (p.row().publisher() != null) publisherNames.add(p.row().publisher());
+                if (p.row().authors() != null) authorNames.addAll(p.row().authors());
+            }
+            nameLookup.publishersChanged(resolveNames("publisher", publisherNames, publisherIds));
+            nameLookup.authorsChanged(resolveNames("author", authorNames, authorIds));
+
+            Timestamp now = Timestamp.from(Instant.now());
+            int[][] counts = jdbc.batchUpdate(INSERT_BOOK, rows, rows.size(), (ps, p) -> {
+                BookImportRow r = p.row();
+                ps.setObject(1, p.id());
+                ps.setString(2, r.title());
+                ps.setString(3, r.isbn());
+                ps.setObject(4, r.publicationYear(), Types.INTEGER);
+                ps.setString(5, r.language());
+                ps.setObject(6, r.edition(), Types.INTEGER);
+                ps.setString(7, r.summary());
+                ps.setString(8, r.coverImageUrl());
+                ps.setTimestamp(9, now);
+                ps.setInt(10, r.totalCopies());
+                ps.setInt(11, r.availableCopies() != null ? r.availableCopies() : r.totalCopies());
+                ps.setObject(12, r.publisher() != null ? publisherIds.get(r.publisher()) : null);
+            });
+
+            List<UUID> importedIds = new ArrayList<>(rows.size());
+            List<UUID[]> authorLinks = new ArrayList<>();
+            List<UUID[]> categoryLinks = new ArrayList<>();
+            int i = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    Pending p = rows.get(i++);
+                    if (count == 0) {
+                        rejected.add(new ImportRowError(p.rowNo(), "duplicate isbn " + p.row().isbn()));
+                        continue;
+                    }
+                    importedIds.add(p.id());
+                    if (p.row().authors() != null) {
+                        for (String name : new LinkedHashSet<>(p.row().authors())) {
+                            authorLinks.add(new UUID[]{p.id(), authorIds.get(name)});
+                        }
+                    }
+                    if (p.row().categoryIds() != null) {
+                        for (UUID categoryId : new LinkedHashSet<>(p.row().categoryIds())) {
+                            categoryLinks.add(new UUID[]{p.id(), categoryId});
+                        }
+                    }
+                }
+            }
+            jdbc.batchUpdate(INSERT_BOOK_AUTHOR, authorLinks, authorLinks.size(), this::setLink);
+            jdbc.batchUpdate(INSERT_BOOK_CATEGORY, categoryLinks, categoryLinks.size(), this::setLink);
+            bookChangeFeed.booksChanged(importedIds);
+            return importedIds.size();
+        }
+
+        private UUID unknownCategory(BookImportRow row) {
+            if (row.categoryIds() == null) return null;
+            for (UUID id : row.categoryIds()) {
+                if (!categoryIds.contains(id)) return id;
+            }
+            return null;
+        }
+
+        private void setLink(PreparedStatement ps, UUID[] link) throws SQLException {
+            ps.setObject(1, link[0]);
+            ps.setObject(2, link[1]);
+        }
+
+        /**
+         * Looks up or creates every name not seen before with one statement and remembers the ids.
+         * Returns the ids of the names this statement created.
+         */
+        private List<UUID> resolveNames(String table, Set<String> names, Map<String, UUID> known) {
+            List<String> missing = new ArrayList<>();
+            for (String n : names) if (!known.containsKey(n)) missing.add(n);
+            List<UUID> created = new ArrayList<>();
+            if (missing.isEmpty()) return created;
+            UUID[] ids = new UUID[missing.size()];
+            for (int k = 0; k < ids.length; k++) ids[k] = UuidV7.next();
+            jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(String.format(UPSERT_NAMES, table));
+                Array idArray = con.createArrayOf("uuid", ids);
+                Array nameArray = con.createArrayOf("text", missing.toArray());
+                ps.setArray(1, idArray);
+                ps.setArray(2, nameArray);
+                return ps;
+            }, rs -> {
+                UUID id = rs.getObject("id", UUID.class);
+                known.put(rs.getString("name"), id);
+                if (rs.getBoolean("created")) created.add(id);
+            });
+            // a concurrent import may have committed a name after this statement's snapshot was taken
+            List<String> stillMissing = missing.stream().filter(n -> !known.containsKey(n)).toList();
+            if (stillMissing.isEmpty()) return created;
+            jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement("select id, name from " + table + " where name = any(?)");
+                ps.setArray(1, con.createArrayOf("text", stillMissing.toArray()));
+                return ps;
+            }, rs -> {
+                known.put(rs.getString("name"), rs.getObject("id", UUID.class));
+            });
+            return created;
+        }
+    }
+}
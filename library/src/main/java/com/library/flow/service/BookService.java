@@ -1,8 +1,15 @@
 package com.library.flow.service;
 
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.common.dto.BookLiveState;
 import com.library.flow.common.dto.CreateBookRequest;
+import com.library.flow.common.dto.CursorPage;
+import com.library.flow.common.dto.NamedRef;
+import com.library.flow.common.dto.PageCursor;
 import com.library.flow.common.dto.UpdateBookRequest;
 import com.library.flow.common.error.custom.NotFoundException;
+import com.library.flow.common.error.custom.PreconditionFailedException;
 import com.library.flow.entity.Author;
 import com.library.flow.entity.Book;
 import com.library.flow.entity.Category;
@@ -14,23 +21,32 @@ import com.library.flow.repository.PublisherRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BookService {
 
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final CategoryRepository categoryRepository;
     private final PublisherRepository publisherRepository;
+    private final CatalogCache catalogCache;
+    private final BookChangeFeed bookChangeFeed;
 
     @Transactional
     public Book addBook(CreateBookRequest request) {
@@ -64,16 +80,26 @@ public class BookService {
                 : book.getTotalCopies());
 
         bookRepository.save(book);
+        bookChangeFeed.booksChanged(List.of(book.getId()));
         log.info("addBook: saved id={}", book.getId());
         return book;
     }
 
+    /**
+     * Applies the changes under optimistic locking. With {@code expectedVersion} (the client's If-Match)
+     * the update only goes through if nobody, a loan included, has written the book since that version;
+     * otherwise a concurrent write is still detected and reported as a conflict instead of being overwritten.
+     * Returns the book as this transaction left it, including the version its flush produced.
+     */
     @Transactional
-    public Book updateBook(UUID id, UpdateBookRequest request) {
+    public BookListItem updateBook(UUID id, UpdateBookRequest request, Long expectedVersion) {
         log.info("updateBook: id={}", id);
 
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("book",id));
+        if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+            throw new PreconditionFailedException("book " + id + " has changed (version " + book.getVersion() + ")");
+        }
 
         if (request.title() != null) book.setTitle(request.title());
         if (request.publicationYear() != null) book.setPublicationYear(request.publicationYear());
@@ -89,41 +115,175 @@ public class BookService {
         }
 
         if (request.authorIds() != null) {
-            Set<Author> authors = resolveAuthors(request.authorIds());
-            book.getAuthors().clear();
-            if (!authors.isEmpty()) book.getAuthors().addAll(authors);
+            syncRelation(book.getAuthors(), request.authorIds(), Author::getId, authorRepository::findAllById);
         }
 
         if (request.categoryIds() != null) {
-            Set<Category> categories = resolveCategories(request.categoryIds());
-            book.getCategories().clear();
-            if (!categories.isEmpty()) book.getCategories().addAll(categories);
+            syncRelation(book.getCategories(), request.categoryIds(), Category::getId, categoryRepository::findAllById);
         }
 
         if (request.totalCopies() != null) book.setTotalCopies(request.totalCopies());
         if (request.availableCopies() != null) book.setAvailableCopies(request.availableCopies());
 
+        // Flush here so a version clash surfaces inside this method, where it can still be told apart.
+        try {
+            bookRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            if (expectedVersion == null) throw ex;
+            throw new PreconditionFailedException("book " + id + " has changed");
+        }
+        catalogCache.evict(CatalogCache.BOOKS, id);
+        bookChangeFeed.booksChanged(List.of(id));
         log.info("updateBook: done id={}", id);
-        return book;
+        // the flushed version and the names as this transaction wrote them, so an ETag built from it
+        // cannot describe someone else's later write
+        return BookListItem.of(book,
+                book.getAuthors().stream().map(a -> new NamedRef(a.getId(), a.getName())).toList(),
+                book.getCategories().stream().map(c -> new NamedRef(c.getId(), c.getName())).toList());
     }
 
-    public Page<Book> findAll(Pageable pageable) {
+    /**
+     * Book detail. The catalog part comes from {@link CatalogCache}; available copies and the version
+     * change with every loan, so they are always read from the book row.
+     */
+    @Transactional(readOnly = true)
+    public BookListItem findById(UUID id) {
+        BookListItem book = catalogCache.get(CatalogCache.BOOKS, id, () -> loadListItems(List.of(id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("book", id)));
+        BookLiveState live = bookRepository.findLiveState(id);
+        if (live == null) throw new NotFoundException("book", id);
+        return book.withLiveState(live);
+    }
+
+    /**
+     * One page of the catalog as flat list items. The page is resolved as ids first, then books with
+     * their publisher, authors and categories are each loaded with one query for the whole page,
+     * so the statement count does not depend on the page size.
+     */
+    @Transactional(readOnly = true)
+    public Page<BookListItem> findAll(Pageable pageable) {
         log.debug("findAll: page={}, size={}", pageable.getPageNumber(), pageable.getPageSize());
-        return bookRepository.findAll(pageable);
+        Page<UUID> ids = bookRepository.findPageOfIds(pageable);
+        return new PageImpl<>(loadListItems(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Keyset listing ordered by {@code sortField} (title or createdAt) then id. Each page is one
+     * indexed range scan, so the cost does not grow with depth and no count query is run.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookListItem> scroll(String cursor, int size, String sortField) {
+        log.debug("scroll: sort={}, size={}, first={}", sortField, size, cursor == null);
+        Limit limit = Limit.of(size + 1);
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        List<UUID> ids;
+        switch (sortField) {
+            case "title" -> ids = after == null
+                    ? bookRepository.findFirstIdsByTitle(limit)
+                    : bookRepository.findIdsAfterTitle(after.key(), after.id(), limit);
+            case "createdAt" -> ids = after == null
+                    ? bookRepository.findFirstIdsByCreatedAt(limit)
+                    : bookRepository.findIdsAfterCreatedAt(parseInstant(after.key()), after.id(), limit);
+            default -> throw new IllegalArgumentException("unsupported sort for scrolling: " + sortField);
+        }
+        return CursorPage.of(loadListItems(ids), size, b -> new PageCursor(
+                "title".equals(sortField) ? b.title() : b.createdAt().toString(), b.id()));
+    }
+
+    /**
+     * Books filed under {@code categoryId} or any category below it, in id order. The subtree is
+     * resolved through the category closure table, so nested categories cost no extra queries.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookListItem> findByCategoryTree(UUID categoryId, String cursor, int size) {
+        if (!categoryRepository.existsById(categoryId)) throw new NotFoundException("category", categoryId);
+        UUID after = cursor != null ? PageCursor.decode(cursor).id() : MIN_ID;
+        List<UUID> ids = bookRepository.findIdsInCategoryTree(categoryId, after, size + 1);
+        return CursorPage.of(loadListItems(ids), size, b -> new PageCursor("", b.id()));
+    }
+
+    /**
+     * Books matching {@code filter} in title order, as a keyset listing. The statement is built from the
+     * facets actually filtered on, and each single-facet filter has a (facet, title, id) index to walk.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookListItem> filter(BookFilter filter, String cursor, int size) {
+        log.debug("filter: filter={}, size={}, first={}", filter, size, cursor == null);
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        List<UUID> ids = bookRepository.findIdsMatching(filter, after, size + 1);
+        return CursorPage.of(loadListItems(ids), size, b -> new PageCursor(b.title(), b.id()));
+    }
+
+    /** List items for the given ids, in the same order; ids that do not exist are skipped. */
+    @Transactional(readOnly = true)
+    public List<BookListItem> findListItems(List<UUID> ids) {
+        return loadListItems(ids);
+    }
+
+    private List<BookListItem> loadListItems(List<UUID> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<UUID, Book> books = new HashMap<>();
+        for (Book b : bookRepository.findAllWithPublisherByIdIn(ids)) books.put(b.getId(), b);
+        Map<UUID, List<NamedRef>> authors = groupRefs(bookRepository.findAuthorRefs(ids));
+        Map<UUID, List<NamedRef>> categories = groupRefs(bookRepository.findCategoryRefs(ids));
+
+        List<BookListItem> items = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Book b = books.get(id);
+            if (b == null) continue;
+            items.add(BookListItem.of(b,
+                    authors.getOrDefault(id, List.of()),
+                    categories.getOrDefault(id, List.of())));
+        }
+        return items;
+    }
+
+    private Map<UUID, List<NamedRef>> groupRefs(List<Object[]> rows) {
+        Map<UUID, List<NamedRef>> byBook = new HashMap<>();
+        for (Object[] row : rows) {
+            byBook.computeIfAbsent((UUID) row[0], k -> new ArrayList<>())
+                    .add(new NamedRef((UUID) row[1], (String) row[2]));
+        }
+        return byBook;
     }
 
     public void deleteByUUID(UUID id) {
         log.info("deleteByUUID: id={}", id);
         if (!bookRepository.existsById(id)) throw new NotFoundException("Book" , id);
         bookRepository.deleteById(id);
+        catalogCache.evict(CatalogCache.BOOKS, id);
+        bookChangeFeed.booksChanged(List.of(id));
         log.info("deleteByUUID: deleted id={}", id);
     }
 
+    private Instant parseInstant(String key) {
+        try {
+            return Instant.parse(key);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+
     private Publisher resolvePublisher(UUID id) {
         return publisherRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("publisher"));
     }
 
+    /**
+     * Brings a many-to-many collection to exactly {@code wantedIds} by removing and adding single
+     * elements, so Hibernate writes one join-table row per actual change instead of deleting and
+     * re-inserting the whole collection. An unchanged relation costs no statements; only ids that are
+     * not linked yet are loaded, and unknown ids are ignored as before.
+     */
+    private static <T> void syncRelation(Set<T> current, Set<UUID> wantedIds, Function<T, UUID> idOf,
+                                         Function<Set<UUID>, List<T>> load) {
+        current.removeIf(e -> !wantedIds.contains(idOf.apply(e)));
+        Set<UUID> missing = new HashSet<>(wantedIds);
+        for (T e : current) missing.remove(idOf.apply(e));
+        if (!missing.isEmpty()) current.addAll(load.apply(missing));
+    }
+
     private Set<Author> resolveAuthors(Set<UUID> ids) {
         if (ids == null || ids.isEmpty()) return Collections.emptySet();
         return new HashSet<>(authorRepository.findAllById(ids));
@@ -0,0 +1,103 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.CreateBorrowRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Opt-in group commit for checkouts. Requests for the same book that arrive within a short window
+ * (or until the batch is full) are handed to {@link BorrowService#borrowBatch} together, and each
+ * caller gets its own result or rejection back once the batch has committed.
+ * When disabled every call goes straight to {@link BorrowService#borrow}.
+ */
+@Service
+@Slf4j
+public class BorrowCoalescer {
+
+    private final BorrowService borrowService;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<UUID, List<Pending>> openBatches = new ConcurrentHashMap<>();
+
+    public BorrowCoalescer(BorrowService borrowService,
+                           @Value("${library.borrowCoalescing.enabled:false}") boolean enabled,
+                           @Value("${library.borrowCoalescing.windowMillis:2}") long windowMillis,
+                           @Value("${library.borrowCoalescing.maxBatchSize:64}") int maxBatchSize,
+                           @Value("${library.borrowCoalescing.threads:4}") int threads) {
+        this.borrowService = borrowService;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = enabled ? Executors.newScheduledThreadPool(threads) : null;
+        log.info("Borrow coalescing enabled={}, window={}ms, maxBatchSize={}", enabled, windowMillis, maxBatchSize);
+    }
+
+    public UUID borrow(CreateBorrowRequest request) {
+        if (!enabled) return borrowService.borrow(request);
+        if (request.dueAt() != null && request.dueAt().isBefore(Instant.now())) {
+            throw new IllegalArgumentException("dueAt must be in the future");
+        }
+        try {
+            return submit(request).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    CompletableFuture<UUID> submit(CreateBorrowRequest request) {
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        UUID bookId = request.bookId();
+        List<List<Pending>> full = new ArrayList<>(1);
+        openBatches.compute(bookId, (id, batch) -> {
+            if (batch == null) {
+                List<Pending> created = new ArrayList<>();
+                scheduler.schedule(() -> {
+                    if (openBatches.remove(id, created)) flush(id, created);
+                }, windowMillis, TimeUnit.MILLISECONDS);
+                batch = created;
+            }
+            batch.add(pending);
+            if (batch.size() >= maxBatchSize) {
+                full.add(batch);
+                return null;
+            }
+            return batch;
+        });
+        if (!full.isEmpty()) scheduler.execute(() -> flush(bookId, full.get(0)));
+        return pending.result();
+    }
+
+    private void flush(UUID bookId, List<Pending> batch) {
+        List<CreateBorrowRequest> requests = new ArrayList<>(batch.size());
+        for (Pending p : batch) requests.add(p.request());
+        try {
+            List<BorrowOutcome> outcomes = borrowService.borrowBatch(bookId, requests);
+            for (int i = 0; i < batch.size(); i++) {
+                BorrowOutcome outcome = outcomes.get(i);
+                if (outcome.success()) batch.get(i).result().complete(outcome.transactionId());
+                else batch.get(i).result().completeExceptionally(outcome.error());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Borrow batch failed: bookId={}, size={}, reason={}", bookId, batch.size(), ex.getMessage());
+            for (Pending p : batch) p.result().completeExceptionally(ex);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) scheduler.shutdown();
+    }
+
+    private record Pending(CreateBorrowRequest request, CompletableFuture<UUID> result) {}
+}
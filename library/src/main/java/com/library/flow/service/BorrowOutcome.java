@@ -0,0 +1,21 @@
+package com.library.flow.service;
+
+import java.util.UUID;
+
+/**
+ * Result of one borrow inside a batch: either the new transaction id or the error that rejected it.
+ */
+public record BorrowOutcome(UUID bookId, UUID transactionId, RuntimeException error) {
+
+    public static BorrowOutcome ok(UUID bookId, UUID transactionId) {
+        return new BorrowOutcome(bookId, transactionId, null);
+    }
+
+    public static BorrowOutcome rejected(UUID bookId, RuntimeException error) {
+        return new BorrowOutcome(bookId, null, error);
+    }
+
+    public boolean success() {
+        return error == null;
+    }
+}
@@ -1,26 +1,31 @@
 package com.library.flow.service;
 
 import com.library.flow.common.dto.BorrowStatus;
+import com.library.flow.common.dto.CheckoutItemResult;
+import com.library.flow.common.dto.CheckoutRequest;
 import com.library.flow.common.dto.CreateBorrowRequest;
+import com.library.flow.common.dto.CursorPage;
+import com.library.flow.common.dto.LoanHistoryItem;
+import com.library.flow.common.dto.PageCursor;
 import com.library.flow.common.error.custom.NotFoundException;
-import com.library.flow.entity.Book;
 import com.library.flow.entity.BorrowBook;
 import com.library.flow.entity.Member;
 import com.library.flow.repository.BookRepository;
 import com.library.flow.repository.BorrowRepository;
 import com.library.flow.repository.MemberRepository;
+import com.library.flow.search.BookAvailabilityService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
-import java.util.EnumSet;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -30,6 +35,7 @@ public class BorrowService {
     private final BorrowRepository borrowRepository;
     private final BookRepository bookRepository;
     private final MemberRepository memberRepository;
+    private final BookAvailabilityService availability;
 
     @Value("${library.defaultLoanDays:14}")
     private int defaultLoanDays;
@@ -45,42 +51,196 @@ public class BorrowService {
         Instant dueAtFinal = request.dueAt() != null ? request.dueAt() : nowUtc.plus(defaultLoanDays, ChronoUnit.DAYS);
         if (dueAtFinal.isBefore(nowUtc)) throw new IllegalArgumentException("dueAt must be in the future");
 
-        Member member = memberRepository.
-                findById(request.memberId()).orElseThrow(() -> new NotFoundException("member",request.memberId()));
-        Book book = bookRepository.findByIdForUpdate(request.bookId());
-        if (book == null) throw new NotFoundException("book", request.bookId());
-
-        if (book.getAvailableCopies() == null || book.getAvailableCopies() <= 0) {
-            throw new IllegalStateException("no copies available for this book");
-        }
-
-        int openCountForMember = borrowRepository.countByMember_IdAndStatus(member.getId(), BorrowStatus.OPEN);
-        if (openCountForMember >= maxOpenLoansPerMember) {
+        // Claiming the loan slot first locks the member row, so the duplicate check below
+        // cannot race with another borrow by the same member.
+        if (memberRepository.incrementOpenLoans(request.memberId(), maxOpenLoansPerMember) == 0) {
+            if (!memberRepository.existsById(request.memberId())) throw new NotFoundException("member", request.memberId());
             throw new IllegalStateException("member reached max open borrows");
         }
 
         boolean alreadyBorrowedSameBook = borrowRepository.existsByMember_IdAndBook_IdAndStatusIn(
-                member.getId(), book.getId(), ACTIVE_STATUSES
+                request.memberId(), request.bookId(), ACTIVE_STATUSES
         );
         if (alreadyBorrowedSameBook) {
             throw new IllegalStateException("member already has an active borrow for this book");
         }
 
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
+        // Reserve the copy last: the guarded update is the only statement touching the book row,
+        // so its lock is held just for the loan insert instead of the whole checkout.
+        if (bookRepository.decrementAvailableCopies(request.bookId()) == 0) {
+            if (!bookRepository.existsById(request.bookId())) throw new NotFoundException("book", request.bookId());
+            throw new IllegalStateException("no copies available for this book");
+        }
 
         BorrowBook borrowTransaction = BorrowBook.builder()
-                .member(member)
-                .book(book)
+                .member(memberRepository.getReferenceById(request.memberId()))
+                .book(bookRepository.getReferenceById(request.bookId()))
                 .borrowedAt(nowUtc)
                 .dueAt(dueAtFinal)
                 .status(BorrowStatus.OPEN)
                 .build();
 
         borrowRepository.save(borrowTransaction);
-        log.info("Borrow created: transactionId={}, bookId={}, availableAfter={}", borrowTransaction.getId(), book.getId(), book.getAvailableCopies());
+        availability.copiesChanged(List.of(request.bookId()));
+        log.info("Borrow created: transactionId={}, bookId={}", borrowTransaction.getId(), request.bookId());
         return borrowTransaction.getId();
     }
 
+    /**
+     * Borrows one book for many members at once: loan slots are claimed for all members in one
+     * statement, copies are reserved with a single statement and the loans are written as one
+     * JDBC batch. Outcomes are returned in request order.
+     */
+    @Transactional
+    public List<BorrowOutcome> borrowBatch(UUID bookId, List<CreateBorrowRequest> requests) {
+        Instant nowUtc = Instant.now();
+        BorrowOutcome[] outcomes = new BorrowOutcome[requests.size()];
+        Set<UUID> memberIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UUID memberId = requests.get(i).memberId();
+            if (!memberIds.add(memberId)) {
+                outcomes[i] = BorrowOutcome.rejected(bookId, new IllegalStateException("member already has an active borrow for this book"));
+            }
+        }
+
+        Set<UUID> withSlot = new HashSet<>(memberRepository.claimLoanSlots(memberIds, maxOpenLoansPerMember));
+        Set<UUID> existing = withSlot.size() < memberIds.size() ? memberRepository.findExistingIds(memberIds) : memberIds;
+        Set<UUID> alreadyBorrowing = withSlot.isEmpty() ? Set.of()
+                : borrowRepository.findMemberIdsWithActiveBorrow(bookId, withSlot, ACTIVE_STATUSES);
+
+        List<Integer> eligible = new ArrayList<>();
+        Set<UUID> slotsToRelease = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (outcomes[i] != null) continue;
+            UUID memberId = requests.get(i).memberId();
+            if (!existing.contains(memberId)) {
+                outcomes[i] = BorrowOutcome.rejected(bookId, new NotFoundException("member", memberId));
+            } else if (!withSlot.contains(memberId)) {
+                outcomes[i] = BorrowOutcome.rejected(bookId, new IllegalStateException("member reached max open borrows"));
+            } else if (alreadyBorrowing.contains(memberId)) {
+                outcomes[i] = BorrowOutcome.rejected(bookId, new IllegalStateException("member already has an active borrow for this book"));
+                slotsToRelease.add(memberId);
+            } else {
+                eligible.add(i);
+            }
+        }
+
+        Integer granted = eligible.isEmpty() ? Integer.valueOf(0) : bookRepository.reserveCopies(bookId, eligible.size());
+        RuntimeException noCopy = granted == null
+                ? new NotFoundException("book", bookId)
+                : new IllegalStateException("no copies available for this book");
+        int loansToWrite = granted == null ? 0 : granted;
+
+        List<BorrowBook> loans = new ArrayList<>(loansToWrite);
+        for (int n = 0; n < eligible.size(); n++) {
+            int i = eligible.get(n);
+            CreateBorrowRequest r = requests.get(i);
+            if (n >= loansToWrite) {
+                outcomes[i] = BorrowOutcome.rejected(bookId, noCopy);
+                slotsToRelease.add(r.memberId());
+                continue;
+            }
+            loans.add(BorrowBook.builder()
+                    .member(memberRepository.getReferenceById(r.memberId()))
+                    .book(bookRepository.getReferenceById(bookId))
+                    .borrowedAt(nowUtc)
+                    .dueAt(r.dueAt() != null ? r.dueAt() : nowUtc.plus(defaultLoanDays, ChronoUnit.DAYS))
+                    .status(BorrowStatus.OPEN)
+                    .build());
+        }
+        if (!slotsToRelease.isEmpty()) memberRepository.releaseLoanSlots(slotsToRelease);
+        borrowRepository.saveAll(loans);
+        if (!loans.isEmpty()) availability.copiesChanged(List.of(bookId));
+
+        for (int n = 0; n < loans.size(); n++) {
+            outcomes[eligible.get(n)] = BorrowOutcome.ok(bookId, loans.get(n).getId());
+        }
+        log.info("Borrow batch: bookId={}, requested={}, granted={}", bookId, requests.size(), loans.size());
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * Checks out a whole cart for one member: the member row is locked and the loan limit checked
+     * once, copies for every book are reserved in one id-ordered statement and the loans are
+     * inserted as one batch. When the cart holds more books than the member has free slots, the
+     * slots go to the first books in the cart that actually got a copy. Each book gets its own
+     * result, in the order it was sent.
+     */
+    @Transactional
+    public List<CheckoutItemResult> checkout(CheckoutRequest request) {
+        Instant nowUtc = Instant.now();
+        Instant dueAtFinal = request.dueAt() != null ? request.dueAt() : nowUtc.plus(defaultLoanDays, ChronoUnit.DAYS);
+        if (dueAtFinal.isBefore(nowUtc)) throw new IllegalArgumentException("dueAt must be in the future");
+
+        Member member = memberRepository.findByIdForUpdate(request.memberId());
+        if (member == null) throw new NotFoundException("member", request.memberId());
+
+        Set<UUID> cart = new LinkedHashSet<>(request.bookIds());
+        int freeSlots = maxOpenLoansPerMember - member.getOpenLoanCount();
+        Set<UUID> alreadyBorrowed = borrowRepository.findBookIdsWithActiveBorrow(member.getId(), cart, ACTIVE_STATUSES);
+
+        Map<UUID, CheckoutItemResult> results = new HashMap<>();
+        Set<UUID> toReserve = new TreeSet<>();
+        for (UUID bookId : cart) {
+            if (alreadyBorrowed.contains(bookId)) {
+                results.put(bookId, CheckoutItemResult.failed(bookId, "member already has an active borrow for this book"));
+            } else if (freeSlots <= 0) {
+                results.put(bookId, CheckoutItemResult.failed(bookId, "member reached max open borrows"));
+            } else {
+                toReserve.add(bookId);
+            }
+        }
+
+        Set<UUID> reserved = toReserve.isEmpty() ? Set.of() : new HashSet<>(bookRepository.reserveOneCopyEach(toReserve));
+        if (reserved.size() < toReserve.size()) {
+            Set<UUID> missed = new HashSet<>(toReserve);
+            missed.removeAll(reserved);
+            Set<UUID> existing = bookRepository.findExistingIds(missed);
+            for (UUID bookId : missed) {
+                results.put(bookId, existing.contains(bookId)
+                        ? CheckoutItemResult.failed(bookId, "no copies available for this book")
+                        : CheckoutItemResult.failed(bookId, "book not found with id=" + bookId));
+            }
+        }
+
+        // Slots are handed out only to books that got a copy, in cart order; copies beyond the free slots go back.
+        Set<UUID> granted = new LinkedHashSet<>();
+        Set<UUID> over = new HashSet<>();
+        for (UUID bookId : cart) {
+            if (!reserved.contains(bookId)) continue;
+            if (granted.size() < freeSlots) {
+                granted.add(bookId);
+            } else {
+                over.add(bookId);
+                results.put(bookId, CheckoutItemResult.failed(bookId, "member reached max open borrows"));
+            }
+        }
+        if (!over.isEmpty()) bookRepository.releaseOneCopyEach(over);
+
+        List<BorrowBook> loans = new ArrayList<>(granted.size());
+        for (UUID bookId : granted) {
+            loans.add(BorrowBook.builder()
+                    .member(member)
+                    .book(bookRepository.getReferenceById(bookId))
+                    .borrowedAt(nowUtc)
+                    .dueAt(dueAtFinal)
+                    .status(BorrowStatus.OPEN)
+                    .build());
+        }
+        borrowRepository.saveAll(loans);
+        availability.copiesChanged(granted);
+        member.setOpenLoanCount(member.getOpenLoanCount() + loans.size());
+        for (BorrowBook loan : loans) {
+            UUID bookId = loan.getBook().getId();
+            results.put(bookId, CheckoutItemResult.ok(bookId, loan.getId()));
+        }
+
+        log.info("Checkout: memberId={}, requested={}, borrowed={}", member.getId(), cart.size(), loans.size());
+        List<CheckoutItemResult> ordered = new ArrayList<>(cart.size());
+        for (UUID bookId : cart) ordered.add(results.get(bookId));
+        return ordered;
+    }
+
     @Transactional
     public void returnBook(UUID transactionId, Instant requestedReturnedAt) {
         BorrowBook borrowTransaction = borrowRepository.findById(transactionId)
@@ -93,20 +253,37 @@ public class BorrowService {
             throw new IllegalArgumentException("returnedAt must be >= borrowedAt");
         }
 
-        borrowTransaction.setReturnedAt(returnedAtFinal);
-        borrowTransaction.setStatus(BorrowStatus.RETURNED);
-
-        Book book = bookRepository.findByIdForUpdate(borrowTransaction.getBook().getId());
-        if (book != null) {
-            int totalCopies = book.getTotalCopies() == null ? 0 : book.getTotalCopies();
-            int availableCopies = book.getAvailableCopies() == null ? 0 : book.getAvailableCopies();
-            int newAvailable = availableCopies + 1;
-            book.setAvailableCopies(newAvailable > totalCopies ? totalCopies : newAvailable);
-        }
+        if (borrowRepository.markReturned(transactionId, returnedAtFinal) == 0) return;
+        memberRepository.decrementOpenLoans(borrowTransaction.getMember().getId());
+        bookRepository.incrementAvailableCopies(borrowTransaction.getBook().getId());
+        availability.copiesChanged(List.of(borrowTransaction.getBook().getId()));
 
         log.info("Borrow returned: transactionId={}", transactionId);
     }
 
+    /**
+     * A member's loans, newest first, one keyset page at a time.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<LoanHistoryItem> loanHistory(UUID memberId, String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<LoanHistoryItem> rows;
+        if (cursor == null) {
+            if (!memberRepository.existsById(memberId)) throw new NotFoundException("member", memberId);
+            rows = borrowRepository.findFirstLoansOfMember(memberId, limit);
+        } else {
+            PageCursor before = PageCursor.decode(cursor);
+            Instant borrowedAt;
+            try {
+                borrowedAt = Instant.parse(before.key());
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+            rows = borrowRepository.findLoansOfMemberBefore(memberId, borrowedAt, before.id(), limit);
+        }
+        return CursorPage.of(rows, size, l -> new PageCursor(l.borrowedAt().toString(), l.transactionId()));
+    }
+
     @Transactional
     public void markOverdue(UUID transactionId) {
         BorrowBook borrowTransaction = borrowRepository.findById(transactionId)
@@ -0,0 +1,218 @@
+package com.library.flow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Spreads catalog cache evictions to every instance over Postgres {@code LISTEN/NOTIFY}.
+ * <p>
+ * {@link #publish} runs {@code pg_notify} on the caller's connection, so inside a transaction the
+ * message is delivered by Postgres only when that transaction commits, and never if it rolls back.
+ * Each instance keeps one dedicated listening connection (outside the pool) and evicts the named
+ * entries locally; its own messages are skipped. Notifications sent while the listener is down are
+ * lost, so every connect, reconnect and detected disconnect clears the catalog caches. Staleness after
+ * a network problem is therefore bounded by {@code heartbeatMillis} plus the reconnect delay.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    static final String CHANNEL = "catalog_invalidation";
+    private static final String ALL = "*";
+    /** Keeps a packed payload well under the 8000 byte NOTIFY limit. */
+    private static final int IDS_PER_MESSAGE = 150;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+    private final long heartbeatMillis;
+    private final long reconnectDelayMillis;
+    private final Counter receivedCounter;
+    private final Counter resyncCounter;
+    private final Map<String, Consumer<List<UUID>>> invalidationHooks = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+
+    public CacheInvalidationBus(CacheManager cacheManager, JdbcTemplate jdbcTemplate,
+                                DataSourceProperties dataSource, MeterRegistry registry,
+                                @Value("${library.cacheBus.enabled:true}") boolean enabled,
+                                @Value("${library.cacheBus.heartbeatMillis:5000}") long heartbeatMillis,
+                                @Value("${library.cacheBus.reconnectDelayMillis:1000}") long reconnectDelayMillis) {
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = dataSource.determineUrl();
+        this.username = dataSource.determineUsername();
+        this.password = dataSource.determinePassword();
+        this.enabled = enabled;
+        this.heartbeatMillis = heartbeatMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.receivedCounter = Counter.builder("library.cache.bus.received")
+                .description("Cache invalidation messages received from other instances")
+                .register(registry);
+        this.resyncCounter = Counter.builder("library.cache.bus.resyncs")
+                .description("Full catalog cache clears after the invalidation listener (re)connected or lost its connection")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Registers state that is not held in the cache manager (for example a prebuilt snapshot).
+     * {@code action} runs on the listener thread with the published ids when another instance
+     * publishes for {@code name}, and with {@code null} ("everything") for a clear and after every resync.
+     */
+    public void onInvalidate(String name, Consumer<List<UUID>> action) {
+        invalidationHooks.put(name, action);
+    }
+
+    /** Tells the other instances to evict {@code ids} from {@code cacheName}. */
+    public void publish(String cacheName, Collection<UUID> ids) {
+        if (!enabled || ids.isEmpty()) return;
+        List<String> chunk = new ArrayList<>(Math.min(ids.size(), IDS_PER_MESSAGE));
+        for (UUID id : ids) {
+            chunk.add(id.toString());
+            if (chunk.size() == IDS_PER_MESSAGE) {
+                notify(cacheName, String.join(",", chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) notify(cacheName, String.join(",", chunk));
+    }
+
+    /** Tells the other instances to drop every entry of {@code cacheName}. */
+    public void publishClear(String cacheName) {
+        if (enabled) notify(cacheName, ALL);
+    }
+
+    private void notify(String cacheName, String keys) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CHANNEL, nodeId + ";" + cacheName + ";" + keys);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                listening = true;
+                resync("connected");
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) heartbeatMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        if (!conn.isValid((int) Math.max(1, heartbeatMillis / 1000))) {
+                            throw new SQLException("listen connection is no longer valid");
+                        }
+                        continue;
+                    }
+                    for (PGNotification n : notifications) apply(n.getParameter());
+                }
+            } catch (SQLException ex) {
+                if (!running) break;
+                log.warn("Cache invalidation listener lost its connection: reason={}", ex.getMessage());
+            } finally {
+                if (listening) {
+                    listening = false;
+                    if (running) resync("disconnected");
+                }
+            }
+            try {
+                Thread.sleep(reconnectDelayMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        String[] parts = payload.split(";", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) return;
+        Consumer<List<UUID>> hook = invalidationHooks.get(parts[1]);
+        Cache cache = hook == null ? cacheManager.getCache(parts[1]) : null;
+        if (hook == null && cache == null) return;
+        receivedCounter.increment();
+        if (ALL.equals(parts[2])) {
+            if (hook != null) runHook(parts[1], hook, null);
+            else cache.clear();
+            return;
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (String key : parts[2].split(",")) {
+            try {
+                ids.add(UUID.fromString(key));
+            } catch (IllegalArgumentException ex) {
+                log.warn("Ignoring malformed cache invalidation key: cache={}, key={}", parts[1], key);
+            }
+        }
+        if (hook != null) {
+            runHook(parts[1], hook, ids);
+            return;
+        }
+        for (UUID id : ids) cache.evict(id);
+    }
+
+    private void resync(String reason) {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+        invalidationHooks.forEach((name, hook) -> runHook(name, hook, null));
+        resyncCounter.increment();
+        log.info("Catalog caches cleared: reason={}", reason);
+    }
+
+    private void runHook(String name, Consumer<List<UUID>> hook, List<UUID> ids) {
+        try {
+            hook.accept(ids);
+        } catch (RuntimeException ex) {
+            log.warn("Cache invalidation hook failed: name={}, reason={}", name, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.flow.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Read-through cache for catalog lookups by id. Values never carry anything callers must see
+ * live (availability is read from the database on every request).
+ * <p>
+ * Eviction is precise: a mutation evicts exactly the entries it changed, and because the cache
+ * manager is transaction aware the eviction runs after commit. A load racing with the eviction
+ * cannot survive it, since Caffeine makes the eviction wait for an in-flight load of the same key.
+ * Every eviction is also published on the {@link CacheInvalidationBus} for the other instances.
+ */
+@Component
+public class CatalogCache {
+
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String PUBLISHERS = "publishers";
+    public static final String CATEGORIES = "categories";
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus bus;
+    private final int bulkEvictThreshold;
+
+    public CatalogCache(CacheManager cacheManager, CacheInvalidationBus bus,
+                        @Value("${library.cache.bulkEvictThreshold:5000}") int bulkEvictThreshold) {
+        this.cacheManager = cacheManager;
+        this.bus = bus;
+        this.bulkEvictThreshold = bulkEvictThreshold;
+    }
+
+    /** Returns the cached value, loading it once on a miss. Exceptions thrown by the loader propagate unchanged. */
+    public <T> T get(String cacheName, UUID id, Callable<T> loader) {
+        try {
+            return cache(cacheName).get(id, loader);
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    public void evict(String cacheName, UUID id) {
+        cache(cacheName).evict(id);
+        bus.publish(cacheName, List.of(id));
+    }
+
+    /** Evicts the given books, or the whole book cache when a change touches a large share of the catalog. */
+    public void evictBooks(Collection<UUID> ids) {
+        if (ids.isEmpty()) return;
+        Cache books = cache(BOOKS);
+        if (ids.size() > bulkEvictThreshold) {
+            books.clear();
+            bus.publishClear(BOOKS);
+            return;
+        }
+        for (UUID id : ids) books.evict(id);
+        bus.publish(BOOKS, ids);
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) throw new IllegalStateException("cache not configured: " + name);
+        return cache;
+    }
+}
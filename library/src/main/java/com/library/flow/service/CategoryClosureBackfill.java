@@ -0,0 +1,44 @@
+package com.library.flow.service;
+
+import com.library.flow.repository.CategoryClosureRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills {@code category_closure} from the {@code parent_id} pointers when categories exist that have
+ * no closure rows yet (first start after the table was introduced, or rows written by other tools).
+ */
+@Service
+@Slf4j
+public class CategoryClosureBackfill {
+
+    private final CategoryClosureRepository closureRepository;
+    private final TransactionTemplate tx;
+
+    @Value("${library.categoryClosure.maxDepth:256}")
+    private int maxDepth;
+
+    public CategoryClosureBackfill(CategoryClosureRepository closureRepository, TransactionTemplate tx) {
+        this.closureRepository = closureRepository;
+        this.tx = tx;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfNeeded() {
+        if (closureRepository.countCategoriesWithoutClosure() > 0) rebuild();
+    }
+
+    public int rebuild() {
+        Integer rows = tx.execute(status -> {
+            closureRepository.lockHierarchy();
+            closureRepository.deleteAllRows();
+            return closureRepository.rebuildFromParents(maxDepth);
+        });
+        log.info("Category closure rebuilt: rows={}", rows);
+        return rows != null ? rows : 0;
+    }
+}
@@ -1,7 +1,10 @@
 package com.library.flow.service;
 
+import com.library.flow.common.dto.CategoryRef;
 import com.library.flow.common.error.custom.NotFoundException;
 import com.library.flow.entity.Category;
+import com.library.flow.repository.BookRepository;
+import com.library.flow.repository.CategoryClosureRepository;
 import com.library.flow.repository.CategoryRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -11,7 +14,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.*;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +24,11 @@ import java.util.*;
 public class CategoryService {
 
     private final CategoryRepository repository;
+    private final CategoryClosureRepository closureRepository;
+    private final BookRepository bookRepository;
+    private final CatalogCache catalogCache;
+    private final CategoryTree categoryTree;
+    private final BookChangeFeed bookChangeFeed;
 
     @Transactional
     public UUID createCategory(Category category) {
@@ -26,15 +36,16 @@ public class CategoryService {
         category.setId(null);
         if (category.getParent() != null && category.getParent().getId() != null) {
             UUID parentId = category.getParent().getId();
-            if (parentId.equals(category.getId())) {
-                throw new IllegalArgumentException("category cannot be its own parent");
-            }
             category.setParent(repository.findById(parentId)
                     .orElseThrow(() -> new NotFoundException("parent", parentId)));
         } else {
             category.setParent(null);
         }
+        closureRepository.lockHierarchy();
         repository.save(category);
+        if (category.getParent() != null) closureRepository.insertLeaf(category.getId(), category.getParent().getId());
+        else closureRepository.insertRoot(category.getId());
+        categoryTree.invalidate();
         log.info("createCategory: saved id={}", category.getId());
         return category.getId();
     }
@@ -45,16 +56,45 @@ public class CategoryService {
         Category category = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("category"));
         category.setName(changes.getName());
-        if (changes.getParent() != null && changes.getParent().getId() != null) {
-            UUID parentId = changes.getParent().getId();
+        UUID oldParentId = category.getParent() != null ? category.getParent().getId() : null;
+        UUID parentId = changes.getParent() != null ? changes.getParent().getId() : null;
+        if (!Objects.equals(oldParentId, parentId)) {
+            moveSubtree(category, parentId);
+        }
+        evict(id);
+    }
+
+    /**
+     * Re-parents {@code category} together with everything below it. Runs under the hierarchy lock,
+     * and refuses any target inside the moved subtree, so no cycle of any length can be created.
+     */
+    private void moveSubtree(Category category, UUID parentId) {
+        UUID id = category.getId();
+        closureRepository.lockHierarchy();
+        if (parentId != null) {
             if (id.equals(parentId)) {
                 throw new IllegalArgumentException("category cannot be its own parent");
             }
-            category.setParent(repository.findById(parentId)
-                    .orElseThrow(() -> new NotFoundException("parent",parentId)));
+            Category parent = repository.findById(parentId)
+                    .orElseThrow(() -> new NotFoundException("parent", parentId));
+            if (closureRepository.isAncestor(id, parentId)) {
+                throw new IllegalArgumentException("category cannot be moved under its own descendant");
+            }
+            category.setParent(parent);
         } else {
             category.setParent(null);
         }
+        int detached = closureRepository.detachSubtree(id);
+        int attached = parentId != null ? closureRepository.attachSubtree(id, parentId) : 0;
+        log.info("moveSubtree: id={}, parentId={}, linksRemoved={}, linksAdded={}", id, parentId, detached, attached);
+    }
+
+    @Transactional(readOnly = true)
+    public CategoryRef getCategory(UUID id) {
+        return catalogCache.get(CatalogCache.CATEGORIES, id, () -> repository.findById(id)
+                .map(c -> new CategoryRef(c.getId(), c.getName(),
+                        c.getParent() != null ? c.getParent().getId() : null))
+                .orElseThrow(() -> new NotFoundException("category", id)));
     }
 
     @Transactional(readOnly = true)
@@ -62,37 +102,28 @@ public class CategoryService {
         return repository.findAll(pageable);
     }
 
-    @Transactional(readOnly = true)
-    public List<Category> getCategTree() {
-        List<Category> all = repository.findAll();
-        Map<UUID, Category> map = new LinkedHashMap<>();
-        for (Category c : all) {
-            c.setChildren(new ArrayList<>());
-            map.put(c.getId(), c);
-        }
-        List<Category> roots = new ArrayList<>();
-        for (Category c : map.values()) {
-            Category parent = c.getParent();
-            if (parent == null) {
-                roots.add(c);
-            } else {
-                Category p = map.get(parent.getId());
-                if (p != null) {
-                    c.setParent(p);
-                    p.getChildren().add(c);
-                } else {
-                    roots.add(c);
-                }
-            }
-        }
-        return roots;
+    /** Served from the prebuilt snapshot; no query runs on this path. */
+    public CategoryTree.Snapshot getCategTree() {
+        return categoryTree.current();
     }
 
     @Transactional
     public void deleteById(UUID id) {
+        closureRepository.lockHierarchy();
         if (repository.existsByParent_Id(id)) {
             throw new IllegalStateException("cannot delete category with children");
         }
+        evict(id);
         repository.deleteById(id);
+        closureRepository.deleteCategory(id);
+    }
+
+    /** Book details embed category names, so the category's books go too; the tree is rebuilt after commit. */
+    private void evict(UUID id) {
+        categoryTree.invalidate();
+        catalogCache.evict(CatalogCache.CATEGORIES, id);
+        List<UUID> bookIds = bookRepository.findIdsByCategoryId(id);
+        catalogCache.evictBooks(bookIds);
+        bookChangeFeed.booksChanged(bookIds);
     }
 }
@@ -0,0 +1,145 @@
+package com.library.flow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.library.flow.common.dto.AppResponse;
+import com.library.flow.common.dto.CategoryNode;
+import com.library.flow.common.dto.CategoryRef;
+import com.library.flow.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The category tree as an immutable snapshot, serialized once per change. Reads return the current
+ * snapshot without touching the database or serializing the tree again; a write transaction that changes
+ * categories calls {@link #invalidate()} and the snapshot is rebuilt after it commits, here and
+ * (through {@link CacheInvalidationBus}) on every other instance.
+ * <p>
+ * The ETag is a hash of the tree itself, so every instance serving the same tree hands out the same tag.
+ */
+@Component
+@Slf4j
+public class CategoryTree {
+
+    public static final String NAME = "categoryTree";
+
+    private static final Comparator<CategoryRef> ORDER =
+            Comparator.comparing(CategoryRef::name).thenComparing(CategoryRef::id);
+
+    private final CategoryRepository repository;
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus bus;
+    private final TransactionTemplate readTx;
+    private final AtomicLong versions = new AtomicLong();
+    private volatile Snapshot current;
+
+    public CategoryTree(CategoryRepository repository, ObjectMapper objectMapper, CacheInvalidationBus bus,
+                        PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.bus = bus;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        bus.onInvalidate(NAME, ids -> rebuild());
+    }
+
+    /**
+     * {@code data} is the tree already serialized, to be wrapped in a fresh {@link AppResponse} per
+     * response so the envelope's timestamp stays current; {@code etag} is already quoted.
+     */
+    public record Snapshot(long version, String etag, List<CategoryNode> roots, RawValue data) {
+
+        /** {@code ids} together with every category below any of them. */
+        public Set<UUID> withDescendants(Collection<UUID> ids) {
+            Set<UUID> out = new HashSet<>(ids);
+            collect(roots, false, ids, out);
+            return out;
+        }
+
+        private static void collect(List<CategoryNode> nodes, boolean below, Collection<UUID> ids, Set<UUID> out) {
+            for (CategoryNode n : nodes) {
+                boolean selected = below || ids.contains(n.id());
+                if (selected) out.add(n.id());
+                if (n.children() != null) collect(n.children(), selected, ids, out);
+            }
+        }
+    }
+
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    /** Schedules a rebuild for when the surrounding transaction commits (or right away without one). */
+    public void invalidate() {
+        bus.publishClear(NAME);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        rebuild();
+    }
+
+    /** Serialized so a rebuild that read older data can never replace one that read newer data. */
+    synchronized Snapshot rebuild() {
+        List<CategoryRef> all = readTx.execute(status -> repository.findAllRefs());
+        Map<UUID, List<CategoryRef>> children = new HashMap<>();
+        Set<UUID> ids = new HashSet<>();
+        for (CategoryRef c : all) ids.add(c.id());
+        List<CategoryRef> roots = new ArrayList<>();
+        for (CategoryRef c : all) {
+            if (c.parentId() == null || !ids.contains(c.parentId())) roots.add(c);
+            else children.computeIfAbsent(c.parentId(), k -> new ArrayList<>()).add(c);
+        }
+        roots.sort(ORDER);
+        List<CategoryNode> tree = toNodes(roots, children, new HashSet<>());
+
+        try {
+            byte[] data = objectMapper.writeValueAsBytes(tree);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(data) + "\"";
+            RawValue json = new RawValue(new String(data, StandardCharsets.UTF_8));
+            Snapshot snapshot = new Snapshot(versions.incrementAndGet(), etag, tree, json);
+            current = snapshot;
+            log.info("Category tree rebuilt: version={}, categories={}, etag={}", snapshot.version(), all.size(), etag);
+            return snapshot;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("category tree could not be serialized", ex);
+        }
+    }
+
+    private List<CategoryNode> toNodes(List<CategoryRef> refs, Map<UUID, List<CategoryRef>> children, Set<UUID> seen) {
+        List<CategoryNode> nodes = new ArrayList<>(refs.size());
+        for (CategoryRef c : refs) {
+            if (!seen.add(c.id())) continue;
+            List<CategoryRef> kids = children.getOrDefault(c.id(), List.of());
+            List<CategoryRef> sorted = new ArrayList<>(kids);
+            sorted.sort(ORDER);
+            nodes.add(new CategoryNode(c.id(), c.name(), c.parentId(), toNodes(sorted, children, seen)));
+        }
+        return List.copyOf(nodes);
+    }
+}
@@ -25,6 +25,7 @@ public class MemberService {
     public UUID addMember(Member member) {
         log.info("addMember: start");
         member.setId(null);
+        member.setOpenLoanCount(0);
         if (member.getCreatedAt() == null) {
             member.setCreatedAt(Instant.now());
             log.debug("addMember: createdAt set to now");
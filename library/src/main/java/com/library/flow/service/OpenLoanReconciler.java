@@ -0,0 +1,89 @@
+package com.library.flow.service;
+
+import com.library.flow.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Recomputes {@code Member.openLoanCount} from borrow_book in id-ordered chunks and reports drift.
+ * Each chunk locks its member rows first, so in-flight borrows/returns for those members finish
+ * (or wait) before the counts are taken and the rewrite cannot lose a concurrent update.
+ */
+@Service
+@Slf4j
+public class OpenLoanReconciler {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate tx;
+    private final Counter driftCounter;
+
+    @Value("${library.openLoanReconcile.chunkSize:500}")
+    private int chunkSize;
+
+    @Value("${library.openLoanReconcile.onStartup:false}")
+    private boolean onStartup;
+
+    public OpenLoanReconciler(MemberRepository memberRepository, TransactionTemplate tx, MeterRegistry registry) {
+        this.memberRepository = memberRepository;
+        this.tx = tx;
+        this.driftCounter = Counter.builder("library.member.openloans.drift")
+                .description("Members whose openLoanCount had to be corrected")
+                .register(registry);
+    }
+
+    /**
+     * Also backfills the counters once on a database that had loans before the column existed, so the
+     * loan limit holds from the first start instead of from the first nightly run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (onStartup) {
+            reconcile();
+        } else if (memberRepository.hasUncountedOpenLoans()) {
+            log.info("Open loan counters not yet backfilled, reconciling now");
+            reconcile();
+        }
+    }
+
+    @Scheduled(cron = "${library.openLoanReconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    public int reconcile() {
+        long started = System.nanoTime();
+        int drifted = 0;
+        UUID after = MIN_ID;
+        while (true) {
+            UUID upTo = memberRepository.findChunkEnd(after, chunkSize - 1);
+            UUID from = after;
+            UUID to = upTo != null ? upTo : MAX_ID;
+            List<UUID> fixed = tx.execute(status -> {
+                memberRepository.lockRange(from, to);
+                return memberRepository.reconcileOpenLoans(from, to);
+            });
+            if (fixed != null && !fixed.isEmpty()) {
+                drifted += fixed.size();
+                log.warn("Open loan counter drift corrected: members={}", fixed);
+            }
+            if (upTo == null) break;
+            after = upTo;
+        }
+        driftCounter.increment(drifted);
+        log.info("Open loan reconcile: drifted={}, tookMs={}", drifted, (System.nanoTime() - started) / 1_000_000);
+        return drifted;
+    }
+}
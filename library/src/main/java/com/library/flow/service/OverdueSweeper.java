@@ -0,0 +1,83 @@
+package com.library.flow.service;
+
+import com.library.flow.repository.BorrowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that flips every OPEN loan past its due date to OVERDUE.
+ * Loans are walked in id order and updated one bounded id range per transaction,
+ * so no entities are loaded and row locks are only held for a single chunk.
+ */
+@Service
+@Slf4j
+public class OverdueSweeper {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    private final BorrowRepository borrowRepository;
+    private final TransactionTemplate tx;
+    private final Counter rowsCounter;
+    private final Timer runTimer;
+
+    @Value("${library.overdueSweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.overdueSweep.chunkSize:1000}")
+    private int chunkSize;
+
+    public OverdueSweeper(BorrowRepository borrowRepository, TransactionTemplate tx, MeterRegistry registry) {
+        this.borrowRepository = borrowRepository;
+        this.tx = tx;
+        this.rowsCounter = Counter.builder("library.overdue.sweep.rows")
+                .description("Loans moved from OPEN to OVERDUE by the sweeper")
+                .register(registry);
+        this.runTimer = Timer.builder("library.overdue.sweep.duration")
+                .description("Duration of one overdue sweep")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${library.overdueSweep.initialDelayMillis:30000}",
+            fixedDelayString = "${library.overdueSweep.delayMillis:60000}")
+    public void scheduledSweep() {
+        if (enabled) sweep();
+    }
+
+    public int sweep() {
+        Instant now = Instant.now();
+        long started = System.nanoTime();
+        int total = 0;
+        int chunks = 0;
+        UUID after = MIN_ID;
+        while (true) {
+            UUID upTo = borrowRepository.findOverdueChunkEnd(after, now, chunkSize - 1);
+            UUID from = after;
+            UUID to = upTo != null ? upTo : MAX_ID;
+            Integer rows = tx.execute(status -> borrowRepository.markOverdueInRange(from, to, now));
+            total += rows == null ? 0 : rows;
+            chunks++;
+            if (upTo == null) break;
+            after = upTo;
+        }
+        long elapsed = System.nanoTime() - started;
+        rowsCounter.increment(total);
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        if (total > 0) {
+            log.info("Overdue sweep: marked={}, chunks={}, tookMs={}", total, chunks, elapsed / 1_000_000);
+        } else {
+            log.debug("Overdue sweep: nothing to mark, tookMs={}", elapsed / 1_000_000);
+        }
+        return total;
+    }
+}
@@ -1,8 +1,11 @@
 package com.library.flow.service;
 
+import com.library.flow.common.dto.NamedRef;
 import com.library.flow.common.error.custom.NotFoundException;
 import com.library.flow.entity.Publisher;
+import com.library.flow.repository.BookRepository;
 import com.library.flow.repository.PublisherRepository;
+import com.library.flow.search.NameLookupService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -19,12 +23,17 @@ import java.util.UUID;
 public class PublisherService {
 
     private final PublisherRepository repository;
+    private final BookRepository bookRepository;
+    private final CatalogCache catalogCache;
+    private final BookChangeFeed bookChangeFeed;
+    private final NameLookupService nameLookup;
 
     @Transactional
     public UUID addPublisher(Publisher publisher) {
         log.info("addPublisher: start");
         publisher.setId(null);
         repository.save(publisher);
+        nameLookup.publishersChanged(List.of(publisher.getId()));
         log.info("addPublisher: saved id={}", publisher.getId());
         return publisher.getId();
     }
@@ -38,9 +47,16 @@ public class PublisherService {
         });
         log.debug("updatePublisher: name -> {}", changes.getName());
         publisher.setName(changes.getName());
+        evict(id);
         log.info("updatePublisher: done id={}", id);
     }
 
+    public NamedRef getPublisher(UUID id) {
+        return catalogCache.get(CatalogCache.PUBLISHERS, id, () -> repository.findById(id)
+                .map(p -> new NamedRef(p.getId(), p.getName()))
+                .orElseThrow(() -> new NotFoundException("publisher", id)));
+    }
+
     public Page<Publisher> getPublishers(Pageable pageable) {
         log.info("getPublishers: page={}, size={}", pageable.getPageNumber(), pageable.getPageSize());
         return repository.findAll(pageable);
@@ -49,7 +65,17 @@ public class PublisherService {
     @Transactional
     public void deleteById(UUID id) {
         log.info("deletePublisherById: id={}", id);
+        evict(id);
         repository.deleteById(id);
         log.info("deletePublisherById: deleted id={}", id);
     }
+
+    /** Book details embed the publisher name, so the publisher's books go too. */
+    private void evict(UUID id) {
+        catalogCache.evict(CatalogCache.PUBLISHERS, id);
+        nameLookup.publishersChanged(List.of(id));
+        List<UUID> bookIds = bookRepository.findIdsByPublisherId(id);
+        catalogCache.evictBooks(bookIds);
+        bookChangeFeed.booksChanged(bookIds);
+    }
 }
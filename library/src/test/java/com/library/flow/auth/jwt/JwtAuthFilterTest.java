@@ -0,0 +1,142 @@
+package com.library.flow.auth.jwt;
+
+import com.library.flow.auth.repository.UserRepository;
+import com.library.flow.auth.service.JwtService;
+import com.library.flow.auth.service.SecurityStampCache;
+import com.library.flow.auth.service.TokenRevocationService;
+import com.library.flow.auth.service.UserService;
+import com.library.flow.service.CacheInvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * The filter with its real token and stamp handling; only the user table, the user lookup and the
+ * denylist are stubbed, so every database access the filter would cause is visible.
+ */
+class JwtAuthFilterTest {
+
+    private static final String SECRET = "my-super-long-secret-at-least-64-chars-1234567890abcdef";
+    private static final String EMAIL = "reader@example.com";
+
+    private final UUID uid = UUID.randomUUID();
+    private final JwtService jwt = new JwtService(SECRET, 15, 100, new SimpleMeterRegistry());
+    private final UserRepository users = mock(UserRepository.class);
+    private final UserService userService = mock(UserService.class);
+    private final TokenRevocationService revocations = mock(TokenRevocationService.class);
+    private final SecurityStampCache stamps = new SecurityStampCache(users, mock(CacheInvalidationBus.class),
+            new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+    private final JwtAuthFilter filter = new JwtAuthFilter(jwt, userService, stamps, revocations);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "claimsOnly", true);
+        when(users.findSecurityStamp(uid)).thenReturn(0);
+        when(revocations.isRevoked(any())).thenReturn(false);
+        when(userService.loadUserByUsername(EMAIL))
+                .thenReturn(User.withUsername(EMAIL).password("").roles("STAFF").build());
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void currentStampAuthenticatesWithoutLoadingTheUser() throws Exception {
+        String token = token(0);
+
+        assertThat(authenticate(token)).isNotNull();
+        Authentication auth = authenticate(token);
+
+        assertThat(auth.getName()).isEqualTo(EMAIL);
+        assertThat(auth.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_STAFF");
+        verifyNoInteractions(userService);
+        verify(users, times(1)).findSecurityStamp(uid);
+        verifyNoMoreInteractions(users);
+    }
+
+    @Test
+    void staleStampAfterRoleChangeIsRefused() throws Exception {
+        String token = token(0);
+        assertThat(authenticate(token)).isNotNull();
+
+        when(users.findSecurityStamp(uid)).thenReturn(1);
+        stamps.stampChanged(uid);
+
+        assertThat(authenticate(token)).isNull();
+        assertThat(authenticate(token(1))).isNotNull();
+    }
+
+    @Test
+    void deletedUsersTokenIsRefused() throws Exception {
+        String token = token(0);
+        assertThat(authenticate(token)).isNotNull();
+
+        when(users.findSecurityStamp(uid)).thenReturn(null);
+        stamps.stampChanged(uid);
+
+        assertThat(authenticate(token)).isNull();
+    }
+
+    @Test
+    void tokenWithoutStampIsRefused() throws Exception {
+        String token = jwt.generate(EMAIL, Map.of("uid", uid.toString(), "role", "STAFF"));
+
+        assertThat(authenticate(token)).isNull();
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void withoutClaimsOnlyTheUserIsLoadedButTheStampStillCounts() throws Exception {
+        ReflectionTestUtils.setField(filter, "claimsOnly", false);
+
+        assertThat(authenticate(token(0))).isNotNull();
+        verify(userService).loadUserByUsername(EMAIL);
+
+        when(users.findSecurityStamp(uid)).thenReturn(1);
+        stamps.stampChanged(uid);
+
+        assertThat(authenticate(token(0))).isNull();
+    }
+
+    @Test
+    void revokedTokenIsRefused() throws Exception {
+        when(revocations.isRevoked(any())).thenReturn(true);
+
+        assertThat(authenticate(token(0))).isNull();
+    }
+
+    private String token(int stamp) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", uid.toString());
+        claims.put("role", "STAFF");
+        claims.put("stamp", stamp);
+        return jwt.generate(EMAIL, claims);
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/books");
+        req.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(req, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
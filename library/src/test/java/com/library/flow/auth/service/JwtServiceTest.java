@@ -0,0 +1,57 @@
+package com.library.flow.auth.service;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "my-super-long-secret-at-least-64-chars-1234567890abcdef";
+
+    private final JwtService jwt = new JwtService(SECRET, 120, 100, new SimpleMeterRegistry());
+
+    @Test
+    void repeatedParseReturnsCachedClaims() {
+        String token = jwt.generate("reader@example.com", Map.of("role", "STAFF"));
+
+        assertThat(jwt.parse(token)).isSameAs(jwt.parse(token));
+    }
+
+    /** {@code exp} is whole seconds, so the expiry is picked on a second boundary 2-3 s away. */
+    @Test
+    void cachedTokenIsRejectedOnceExpired() throws InterruptedException {
+        Instant exp = Instant.now().plusSeconds(3).truncatedTo(ChronoUnit.SECONDS);
+        String token = Jwts.builder()
+                .subject("reader@example.com")
+                .expiration(Date.from(exp))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        assertThat(jwt.parse(token).getPayload().getSubject()).isEqualTo("reader@example.com");
+
+        Thread.sleep(Duration.between(Instant.now(), exp).toMillis() + 100);
+
+        assertThatThrownBy(() -> jwt.parse(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void tamperedTokenIsRejectedEvenWhenOriginalIsCached() {
+        String token = jwt.generate("reader@example.com", Map.of("role", "STAFF"));
+        jwt.parse(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwt.parse(tampered)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,137 @@
+package com.library.flow.auth.service;
+
+import com.library.flow.common.error.custom.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Each rejection path, with the pool and buckets sized so it is reached deterministically. */
+class LoginAdmissionTest {
+
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private LoginAdmission admission;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (admission != null) admission.shutdown();
+    }
+
+    @Test
+    void addressOverItsBudgetIsRefusedBeforeQueueing() throws Exception {
+        admission = new LoginAdmission(registry, 1, 8, 5000, 1024, 2, NEVER, 100, NEVER);
+
+        assertThat(admission.submit("a@example.com", "10.0.0.1", () -> "a").get()).isEqualTo("a");
+        assertThat(admission.submit("b@example.com", "10.0.0.1", () -> "b").get()).isEqualTo("b");
+        AtomicBoolean checked = new AtomicBoolean();
+        assertThatThrownBy(() -> admission.submit("c@example.com", "10.0.0.1", () -> checked.getAndSet(true)))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessageContaining("address")
+                .satisfies(ex -> assertThat(((TooManyRequestsException) ex).getRetryAfterSeconds()).isPositive());
+
+        assertThat(checked).isFalse();
+        assertThat(admission.submit("c@example.com", "10.0.0.2", () -> "c").get()).isEqualTo("c");
+        assertThat(rejected("ip")).isEqualTo(1);
+        assertThat(rejected("account")).isZero();
+    }
+
+    @Test
+    void accountOverItsBudgetIsRefusedFromAnyAddress() throws Exception {
+        admission = new LoginAdmission(registry, 1, 8, 5000, 1024, 100, NEVER, 2, NEVER);
+
+        admission.submit("Reader@Example.com", "10.0.0.1", () -> "1").get();
+        admission.submit(" reader@example.com", "10.0.0.2", () -> "2").get();
+        assertThatThrownBy(() -> admission.submit("READER@example.com", "10.0.0.3", () -> "3"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessageContaining("account");
+
+        assertThat(admission.submit("other@example.com", "10.0.0.3", () -> "4").get()).isEqualTo("4");
+        assertThat(rejected("account")).isEqualTo(1);
+        assertThat(rejected("ip")).isZero();
+    }
+
+    @Test
+    void fullQueueIsRefusedAtOnce() throws Exception {
+        admission = new LoginAdmission(registry, 1, 1, 5000, 1024, 100, NEVER, 100, NEVER);
+        CountDownLatch running = new CountDownLatch(1);
+
+        CompletableFuture<String> busy = admission.submit("a@example.com", "10.0.0.1", () -> {
+            running.countDown();
+            await(release);
+            return "busy";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = admission.submit("b@example.com", "10.0.0.1", () -> "queued");
+        assertThatThrownBy(() -> admission.submit("c@example.com", "10.0.0.1", () -> "refused"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessage("Login service is busy");
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("busy");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+        assertThat(rejected("saturated")).isEqualTo(1);
+    }
+
+    @Test
+    void loginQueuedPastMaxWaitFailsWithoutCheckingThePassword() throws Exception {
+        admission = new LoginAdmission(registry, 1, 8, 50, 1024, 100, NEVER, 100, NEVER);
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicBoolean checked = new AtomicBoolean();
+
+        CompletableFuture<String> busy = admission.submit("a@example.com", "10.0.0.1", () -> {
+            running.countDown();
+            await(release);
+            return "busy";
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> late = admission.submit("b@example.com", "10.0.0.1", () -> checked.getAndSet(true));
+        Thread.sleep(200);
+        release.countDown();
+
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("busy");
+        assertThatThrownBy(() -> late.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TooManyRequestsException.class);
+        assertThat(checked).isFalse();
+        assertThat(rejected("expired")).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoginCompletesWithItsOwnException() {
+        admission = new LoginAdmission(registry, 1, 8, 5000, 1024, 100, NEVER, 100, NEVER);
+
+        CompletableFuture<String> failed = admission.submit("a@example.com", "10.0.0.1", () -> {
+            throw new IllegalStateException("bad password");
+        });
+
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(registry.find("library.auth.login.rejected").counters())
+                .allSatisfy(c -> assertThat(c.count()).isZero());
+    }
+
+    private double rejected(String reason) {
+        return registry.get("library.auth.login.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.flow.auth.service;
+
+import com.library.flow.auth.dto.CreateUserDTO;
+import com.library.flow.auth.entity.AppUser;
+import com.library.flow.auth.model.Role;
+import com.library.flow.auth.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rotation, reuse detection, expiry and revocation against the database, with the token rows
+ * inspected directly.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RefreshTokenServiceTest {
+
+    @Autowired private RefreshTokenService refreshTokens;
+    @Autowired private UserAdminService userAdmin;
+    @Autowired private UserRepository users;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private MockMvc mvc;
+
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        UUID id = userAdmin.createUser(new CreateUserDTO("refresh-" + tag, "Refresh " + tag,
+                "refresh-" + tag + "@example.com", "secret-" + tag, Role.STAFF));
+        user = users.findById(id).orElseThrow();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("delete from refresh_token where user_id = ?", user.getId());
+        jdbc.update("delete from app_user where id = ?", user.getId());
+    }
+
+    @Test
+    void rotationHandsOutASuccessorOnce() {
+        String first = refreshTokens.issue(user);
+
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(first);
+
+        assertThat(rotation.user().getId()).isEqualTo(user.getId());
+        assertThat(rotation.refreshToken()).isNotEqualTo(first);
+        assertThat(tokens()).isEqualTo(2);
+        assertThat(usedTokens()).isEqualTo(1);
+        assertThat(refreshTokens.rotate(rotation.refreshToken()).user().getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void reusedTokenIsRefusedWith401AndRevokesItsSuccessor() throws Exception {
+        String first = refreshTokens.issue(user);
+        String other = refreshTokens.issue(user);
+        String successor = refreshTokens.rotate(first).refreshToken();
+
+        mvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + first + "\"}"))
+                .andExpect(status().isUnauthorized());
+
+        assertThat(tokens()).as("only the unrelated session is left").isEqualTo(1);
+        assertThatThrownBy(() -> refreshTokens.rotate(successor))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Invalid refresh token");
+        assertThat(refreshTokens.rotate(other).user().getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void expiredTokenIsRefusedAndNotUsedUp() {
+        String token = refreshTokens.issue(user);
+        jdbc.update("update refresh_token set expires_at = now() - interval '1 minute' where user_id = ?", user.getId());
+
+        assertThatThrownBy(() -> refreshTokens.rotate(token))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Refresh token expired");
+        assertThat(tokens()).isEqualTo(1);
+        assertThat(usedTokens()).isZero();
+    }
+
+    @Test
+    void deletingTheUserRevokesAllTheirTokens() {
+        String first = refreshTokens.issue(user);
+        String second = refreshTokens.issue(user);
+        refreshTokens.rotate(second);
+        assertThat(tokens()).isEqualTo(3);
+
+        userAdmin.deleteById(user.getId());
+
+        assertThat(tokens()).isZero();
+        assertThat(users.findById(user.getId())).isEmpty();
+        assertThatThrownBy(() -> refreshTokens.rotate(first))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Invalid refresh token");
+    }
+
+    private int tokens() {
+        return jdbc.queryForObject("select count(*) from refresh_token where user_id = ?", Integer.class, user.getId());
+    }
+
+    private int usedTokens() {
+        return jdbc.queryForObject("select count(*) from refresh_token where user_id = ? and used_at is not null",
+                Integer.class, user.getId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.flow.benchmark;
+
+import com.library.flow.auth.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying one bearer token: a parser built per call (the old path), a parser built once, and
+ * {@link JwtService#parse} answering from its verified-token cache. Skipped by default; run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=JwtVerificationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "my-super-long-secret-at-least-64-chars-1234567890abcdef";
+
+    private SecretKey key;
+    private JwtParser parser;
+    private JwtService service;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        service = new JwtService(SECRET, 120, 10_000, new SimpleMeterRegistry());
+        token = service.generate("reader@example.com",
+                Map.of("uid", UUID.randomUUID().toString(), "role", "STAFF", "stamp", 0));
+        service.parse(token);
+    }
+
+    @Benchmark
+    public Jws<Claims> parserPerCall() {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+    }
+
+    @Benchmark
+    public Jws<Claims> reusedParser() {
+        return parser.parseSignedClaims(token);
+    }
+
+    @Benchmark
+    public Jws<Claims> cached() {
+        return service.parse(token);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.flow.benchmark;
+
+import com.library.flow.common.util.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Random (v4) against time-ordered (v7) primary keys on a table shaped like {@code borrow_book}: insert
+ * throughput and the size of the primary-key index afterwards. Skipped by default; run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=UuidKeyInsertBenchmark [-Dbenchmark.rows=1000000]}.
+ * The shared buffers should be smaller than the random index for the locality difference to show.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@SpringBootTest
+@ActiveProfiles("test")
+class UuidKeyInsertBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Autowired private JdbcTemplate jdbc;
+
+    @Test
+    void compareKeySchemes() {
+        int rows = Integer.getInteger("benchmark.rows", 500_000);
+        Result random = run("bench_key_v4", rows, UUID::randomUUID);
+        Result ordered = run("bench_key_v7", rows, UuidV7::next);
+
+        System.out.printf("%-8s %12s %14s %14s%n", "scheme", "rows/s", "pkey bytes", "table bytes");
+        for (Result r : List.of(random, ordered)) {
+            System.out.printf("%-8s %12.0f %14d %14d%n", r.scheme, r.rowsPerSecond, r.indexBytes, r.tableBytes);
+        }
+        assertThat(ordered.indexBytes).isLessThan(random.indexBytes);
+    }
+
+    private Result run(String table, int rows, Supplier<UUID> ids) {
+        jdbc.execute("drop table if exists " + table);
+        jdbc.execute("create table " + table + " (id uuid primary key, book_id uuid not null, member_id uuid not null, " +
+                "borrowed_at timestamp not null, due_at timestamp not null, status varchar(16) not null)");
+        try {
+            UUID book = UUID.randomUUID();
+            UUID member = UUID.randomUUID();
+            Timestamp now = Timestamp.from(Instant.now());
+            String insert = "insert into " + table + " values (?, ?, ?, ?, ?, 'OPEN')";
+            long begin = System.nanoTime();
+            for (int done = 0; done < rows; done += BATCH) {
+                List<Object[]> batch = new ArrayList<>(BATCH);
+                for (int i = 0; i < Math.min(BATCH, rows - done); i++) {
+                    batch.add(new Object[]{ids.get(), book, member, now, now});
+                }
+                jdbc.batchUpdate(insert, batch);
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            Long indexBytes = jdbc.queryForObject("select pg_relation_size('" + table + "_pkey')", Long.class);
+            Long tableBytes = jdbc.queryForObject("select pg_relation_size('" + table + "')", Long.class);
+            return new Result(table.endsWith("v4") ? "v4" : "v7", rows / seconds, indexBytes, tableBytes);
+        } finally {
+            jdbc.execute("drop table if exists " + table);
+        }
+    }
+
+    private record Result(String scheme, double rowsPerSecond, long indexBytes, long tableBytes) {}
+}
@@ -0,0 +1,29 @@
+package com.library.flow.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedTokenBucketsTest {
+
+    @Test
+    void burstIsLimitedToCapacityPerKey() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1024, 3, 60_000);
+
+        for (int i = 0; i < 3; i++) assertThat(buckets.tryAcquire("a@example.com")).isZero();
+
+        assertThat(buckets.tryAcquire("a@example.com")).isBetween(1L, 60_000L);
+        assertThat(buckets.tryAcquire("b@example.com")).isZero();
+    }
+
+    @Test
+    void tokensComeBackAfterTheRefillInterval() throws InterruptedException {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1024, 1, 50);
+        assertThat(buckets.tryAcquire("10.0.0.1")).isZero();
+        assertThat(buckets.tryAcquire("10.0.0.1")).isPositive();
+
+        Thread.sleep(60);
+
+        assertThat(buckets.tryAcquire("10.0.0.1")).isZero();
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.flow.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidBloomFilterTest {
+
+    @Test
+    void addedIdsAreAlwaysFound() {
+        UuidBloomFilter filter = new UuidBloomFilter(10_000, 0.001);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UuidV7.next();
+            filter.put(id);
+            added.add(id);
+        }
+
+        assertThat(added).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        UuidBloomFilter filter = new UuidBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put(UuidV7.next());
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UuidV7.next())) falsePositives++;
+        }
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
@@ -0,0 +1,81 @@
+package com.library.flow.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UuidIntMapTest {
+
+    @Test
+    void putGetReplaceAndRemove() {
+        UuidIntMap map = new UuidIntMap(4);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+
+        assertThat(map.put(a, 1)).isEqualTo(UuidIntMap.MISSING);
+        assertThat(map.put(b, 2)).isEqualTo(UuidIntMap.MISSING);
+        assertThat(map.put(a, 3)).isEqualTo(1);
+        assertThat(map.get(a)).isEqualTo(3);
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.remove(a)).isEqualTo(3);
+        assertThat(map.remove(a)).isEqualTo(UuidIntMap.MISSING);
+        assertThat(map.get(a)).isEqualTo(UuidIntMap.MISSING);
+        assertThat(map.get(b)).isEqualTo(2);
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void negativeValuesAreRefused() {
+        assertThatThrownBy(() -> new UuidIntMap(4).put(UUID.randomUUID(), -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** Many removals from a small, crowded table exercise the backward shift across wrapped probe runs. */
+    @Test
+    void agreesWithHashMapUnderRandomOperations() {
+        Random random = new Random(42);
+        UuidIntMap map = new UuidIntMap(16);
+        Map<UUID, Integer> expected = new HashMap<>();
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) keys.add(UuidV7.next());
+
+        for (int op = 0; op < 200_000; op++) {
+            UUID key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(previous == null ? UuidIntMap.MISSING : previous);
+            } else {
+                int value = random.nextInt(1_000_000);
+                Integer previous = expected.put(key, value);
+                assertThat(map.put(key, value)).isEqualTo(previous == null ? UuidIntMap.MISSING : previous);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (UUID key : keys) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, UuidIntMap.MISSING));
+        }
+    }
+
+    @Test
+    void clearKeepsTheMapUsable() {
+        UuidIntMap map = new UuidIntMap(4);
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID key = UUID.randomUUID();
+            keys.add(key);
+            map.put(key, i);
+        }
+
+        map.clear();
+
+        assertThat(map.size()).isZero();
+        assertThat(keys).allMatch(k -> map.get(k) == UuidIntMap.MISSING);
+        map.put(keys.get(0), 7);
+        assertThat(map.get(keys.get(0))).isEqualTo(7);
+    }
+}
@@ -0,0 +1,33 @@
+package com.library.flow.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+    @Test
+    void idsCarryVersionVariantAndTime() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, after + 1);
+    }
+
+    /** Postgres compares uuids byte by byte, i.e. as unsigned 128-bit numbers. */
+    @Test
+    void idsIncreaseEvenWithinOneMillisecond() {
+        UUID previous = UuidV7.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.next();
+            int byHigh = Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits());
+            assertThat(byHigh).isPositive();
+            previous = next;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.library.flow.controller;
+
+import com.library.flow.auth.dto.CreateUserDTO;
+import com.library.flow.auth.model.Role;
+import com.library.flow.auth.service.JwtService;
+import com.library.flow.auth.service.UserAdminService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * If-None-Match and If-Match on the book detail, through the whole filter chain with a real token.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookConditionalRequestTest {
+
+    @Autowired private MockMvc mvc;
+    @Autowired private JdbcTemplate jdbc;
+    @Autowired private JwtService jwt;
+    @Autowired private UserAdminService userAdmin;
+
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+    private final UUID bookId = UUID.randomUUID();
+    private final UUID authorId = UUID.randomUUID();
+    private UUID userId;
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        String email = "etag-" + tag + "@example.com";
+        userId = userAdmin.createUser(new CreateUserDTO("etag-" + tag, "ETag " + tag, email, "secret-" + tag, Role.LIBRARIAN));
+        bearer = "Bearer " + jwt.generate(email, Map.of("uid", userId.toString(), "role", "LIBRARIAN", "stamp", 0));
+
+        jdbc.update("insert into author(id, name, version) values (?, ?, 0)", authorId, "Author " + tag);
+        jdbc.update("insert into book(id, title, publication_year, language, created_at, total_copies, available_copies, version) " +
+                "values (?, ?, 2001, 'en', now(), 2, 2, 0)", bookId, "Conditional " + tag);
+        jdbc.update("insert into book_author(book_id, author_id) values (?, ?)", bookId, authorId);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("delete from book_author where book_id = ?", bookId);
+        jdbc.update("delete from book where id = ?", bookId);
+        jdbc.update("delete from author where id = ?", authorId);
+        jdbc.update("delete from app_user where id = ?", userId);
+    }
+
+    @Test
+    void unchangedBookAnswersNotModified() throws Exception {
+        String etag = etagOf(mvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk()));
+
+        mvc.perform(get("/api/books/{id}", bookId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void staleIfMatchIsRefusedWith412() throws Exception {
+        String original = etagOf(mvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.AUTHORIZATION, bearer)));
+
+        String afterFirst = etagOf(update(original, "First " + tag)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("First " + tag)));
+        update(original, "Second " + tag).andExpect(status().isPreconditionFailed());
+
+        String current = etagOf(mvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(jsonPath("$.data.title").value("First " + tag)));
+        assertThat(afterFirst).as("the PUT's tag is the one a GET sees").isEqualTo(current).isNotEqualTo(original);
+        update(afterFirst, "Second " + tag).andExpect(status().isOk());
+    }
+
+    @Test
+    void renamingAnEmbeddedAuthorChangesTheTag() throws Exception {
+        String before = etagOf(mvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.AUTHORIZATION, bearer)));
+
+        mvc.perform(put("/api/authors/{id}", authorId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed " + tag + "\"}"))
+                .andExpect(status().isOk());
+
+        String after = etagOf(mvc.perform(get("/api/books/{id}", bookId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.authors[0].name").value("Renamed " + tag)));
+        assertThat(after).isNotEqualTo(before);
+        // the book row itself did not change, so an edit based on the old tag still goes through
+        update(before, "Edited " + tag).andExpect(status().isOk());
+    }
+
+    private ResultActions update(String ifMatch, String title) throws Exception {
+        return mvc.perform(put("/api/books/{id}", bookId)
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .header(HttpHeaders.IF_MATCH, ifMatch)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\"}"));
+    }
+
+    private static String etagOf(ResultActions result) {
+        String etag = result.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+}
@@ -0,0 +1,107 @@
+package com.library.flow.repository;
+
+import com.library.flow.common.dto.BookFilter;
+import com.library.flow.common.dto.PageCursor;
+import com.library.flow.entity.Category;
+import com.library.flow.service.CategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BookFilterRepositoryTest {
+
+    @Autowired private BookRepository bookRepository;
+    @Autowired private CategoryService categoryService;
+    @Autowired private JdbcTemplate jdbc;
+
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+    private final List<UUID> categories = new ArrayList<>();
+    private final List<UUID> books = new ArrayList<>();
+    private UUID fiction;
+    private UUID fantasy;
+    private UUID epic;
+    private UUID poetry;
+
+    @BeforeEach
+    void setUp() {
+        fiction = category("Fiction", null);
+        fantasy = category("Fantasy", fiction);
+        epic = category("Epic", fantasy);
+        poetry = category("Poetry", null);
+        book("A", fiction);
+        book("B", fantasy);
+        book("C", epic);
+        book("D", poetry);
+        book("E", epic, poetry);
+        book("F");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (UUID id : books) {
+            jdbc.update("delete from book_category where book_id = ?", id);
+            jdbc.update("delete from book where id = ?", id);
+        }
+        for (int i = categories.size() - 1; i >= 0; i--) categoryService.deleteById(categories.get(i));
+    }
+
+    @Test
+    void categoryMatchesItsWholeSubtree() {
+        assertThat(titles(Set.of(fiction))).containsExactly("A", "B", "C", "E");
+        assertThat(titles(Set.of(fantasy))).containsExactly("B", "C", "E");
+        assertThat(titles(Set.of(epic))).containsExactly("C", "E");
+        assertThat(titles(Set.of(fantasy, poetry))).containsExactly("B", "C", "D", "E");
+    }
+
+    @Test
+    void cursorContinuesAfterTheLastTitle() {
+        BookFilter filter = new BookFilter(Set.of("xx-" + tag), null, null, null, Set.of(fiction));
+        List<String> seen = new ArrayList<>();
+        PageCursor after = null;
+        while (true) {
+            List<UUID> page = bookRepository.findIdsMatching(filter, after, 2);
+            if (page.isEmpty()) break;
+            for (UUID id : page) seen.add(title(id));
+            UUID last = page.get(page.size() - 1);
+            after = new PageCursor(title(last) + " " + tag, last);
+        }
+        assertThat(seen).containsExactly("A", "B", "C", "E");
+    }
+
+    private List<String> titles(Set<UUID> categoryIds) {
+        BookFilter filter = new BookFilter(Set.of("xx-" + tag), null, null, null, categoryIds);
+        return bookRepository.findIdsMatching(filter, null, 100).stream().map(this::title).toList();
+    }
+
+    private String title(UUID id) {
+        return jdbc.queryForObject("select title from book where id = ?", String.class, id).replace(" " + tag, "");
+    }
+
+    private UUID category(String name, UUID parent) {
+        Category c = new Category();
+        c.setName(name + " " + tag);
+        if (parent != null) c.setParent(Category.builder().id(parent).build());
+        UUID id = categoryService.createCategory(c);
+        categories.add(id);
+        return id;
+    }
+
+    private void book(String title, UUID... categoryIds) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("insert into book(id, title, publication_year, language, created_at, total_copies, available_copies, version) " +
+                "values (?, ?, 2000, ?, now(), 1, 1, 0)", id, title + " " + tag, "xx-" + tag);
+        for (UUID c : categoryIds) jdbc.update("insert into book_category(book_id, category_id) values (?, ?)", id, c);
+        books.add(id);
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.flow.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityTableTest {
+
+    @Test
+    void lookupFollowsRequestOrderAndSkipsUnknownIds() {
+        AvailabilityTable table = new AvailabilityTable(4);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        table.put(a, 1, 2);
+        table.put(b, 0, 5);
+        table.put(a, 2, 2);
+
+        List<String> seen = new ArrayList<>();
+        int found = table.lookup(List.of(b, UUID.randomUUID(), a),
+                (id, available, total) -> seen.add(id + ":" + available + "/" + total));
+
+        assertThat(found).isEqualTo(2);
+        assertThat(seen).containsExactly(b + ":0/5", a + ":2/2");
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removedSlotsAreReusedWithoutGrowing() {
+        AvailabilityTable table = new AvailabilityTable(16);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            ids.add(UUID.randomUUID());
+            table.put(ids.get(i), i, 100 + i);
+        }
+        assertThat(capacity(table)).isEqualTo(16);
+
+        List<UUID> removed = List.copyOf(ids.subList(0, 8));
+        for (UUID id : removed) assertThat(table.remove(id)).isTrue();
+        assertThat(table.remove(removed.get(0))).isFalse();
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            added.add(UUID.randomUUID());
+            table.put(added.get(i), 1000 + i, 2000 + i);
+        }
+
+        assertThat(capacity(table)).isEqualTo(16);
+        assertThat(table.size()).isEqualTo(16);
+        assertThat(copies(table, removed)).isEmpty();
+        Map<UUID, Integer> reused = copies(table, added);
+        for (int i = 0; i < 8; i++) assertThat(reused.get(added.get(i))).isEqualTo(1000 + i);
+        Map<UUID, Integer> kept = copies(table, ids.subList(8, 16));
+        for (int i = 8; i < 16; i++) assertThat(kept.get(ids.get(i))).isEqualTo(i);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        AvailabilityTable table = new AvailabilityTable(0);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(UUID.randomUUID());
+            table.put(ids.get(i), i, i + 1);
+        }
+
+        assertThat(table.size()).isEqualTo(5_000);
+        assertThat(capacity(table)).isGreaterThanOrEqualTo(5_000);
+        List<int[]> rows = new ArrayList<>();
+        table.lookup(ids, (id, available, total) -> rows.add(new int[]{available, total}));
+        for (int i = 0; i < rows.size(); i++) assertThat(rows.get(i)).containsExactly(i, i + 1);
+    }
+
+    /** Removals interleaved with inserts keep the free list and both columns in step with a plain map. */
+    @Test
+    void agreesWithHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        AvailabilityTable table = new AvailabilityTable(16);
+        Map<UUID, Integer> expected = new HashMap<>();
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) keys.add(UUID.randomUUID());
+
+        for (int op = 0; op < 100_000; op++) {
+            UUID key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                assertThat(table.remove(key)).isEqualTo(expected.remove(key) != null);
+            } else {
+                int available = random.nextInt(50);
+                table.put(key, available, available + 1);
+                expected.put(key, available);
+            }
+        }
+
+        assertThat(table.size()).isEqualTo(expected.size());
+        assertThat(capacity(table)).isLessThanOrEqualTo(2 * keys.size());
+        Map<UUID, Integer> actual = new HashMap<>();
+        table.lookup(keys, (id, available, total) -> {
+            assertThat(total).isEqualTo(available + 1);
+            actual.put(id, available);
+        });
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private static int capacity(AvailabilityTable table) {
+        return ((int[]) ReflectionTestUtils.getField(table, "available")).length;
+    }
+
+    private static Map<UUID, Integer> copies(AvailabilityTable table, Collection<UUID> ids) {
+        Map<UUID, Integer> out = new HashMap<>();
+        table.lookup(ids, (id, available, total) -> out.put(id, available));
+        return out;
+    }
+}
@@ -0,0 +1,92 @@
+package com.library.flow.search;
+
+import com.library.flow.service.BookChangeFeed;
+import com.library.flow.service.CacheInvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/** How loan changes reach other instances; the table itself is never loaded here. */
+class BookAvailabilityServiceTest {
+
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    private BookAvailabilityService service;
+
+    @AfterEach
+    void shutdown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+        service.shutdown();
+    }
+
+    @Test
+    void changesAreCollectedAndPublishedTogetherAfterTheInterval() {
+        service = service(true);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+
+        service.copiesChanged(List.of(a));
+        service.copiesChanged(List.of(a, b));
+        verify(bus, never()).publish(anyString(), any());
+
+        ArgumentCaptor<Collection<UUID>> ids = idsCaptor();
+        verify(bus, timeout(2_000)).publish(eq(BookAvailabilityService.TOPIC), ids.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(a, b);
+
+        UUID c = UUID.randomUUID();
+        service.copiesChanged(List.of(c));
+        verify(bus, timeout(2_000).times(2)).publish(eq(BookAvailabilityService.TOPIC), ids.capture());
+        assertThat(ids.getValue()).containsExactly(c);
+    }
+
+    @Test
+    void nothingIsPublishedInsideTheLoanTransactionOrAfterARollback() throws Exception {
+        service = service(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.copiesChanged(List.of(UUID.randomUUID()));
+        Thread.sleep(200);
+        verify(bus, never()).publish(anyString(), any());
+
+        List<TransactionSynchronization> registered = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization s : registered) s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        Thread.sleep(200);
+        verify(bus, never()).publish(anyString(), any());
+    }
+
+    @Test
+    void disabledTableNeverPublishes() throws Exception {
+        service = service(false);
+
+        service.copiesChanged(List.of(UUID.randomUUID()));
+        Thread.sleep(200);
+
+        verify(bus, never()).publish(anyString(), any());
+    }
+
+    private BookAvailabilityService service(boolean enabled) {
+        return new BookAvailabilityService(mock(EntityManager.class), mock(PlatformTransactionManager.class), bus,
+                mock(BookChangeFeed.class), new SimpleMeterRegistry(), enabled, 100, 50);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<UUID>> idsCaptor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+}
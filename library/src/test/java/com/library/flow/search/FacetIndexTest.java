@@ -0,0 +1,168 @@
+package com.library.flow.search;
+
+import com.library.flow.common.dto.BookFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the index against counting by hand over the same random catalog. The catalog is large
+ * enough for the common values to switch to bitmaps, and filters range from one rare value to wide
+ * year ranges, so counts are taken both by intersecting value sets and by walking matching docs.
+ */
+class FacetIndexTest {
+
+    private static final List<String> LANGUAGES = List.of("en", "de", "fr", "es", "it", "pl", "nl", "sv");
+
+    private final Random random = new Random(2024);
+    private final List<UUID> publishers = ids(60);
+    private final List<UUID> categories = ids(40);
+    private final Map<UUID, Book> catalog = new LinkedHashMap<>();
+    private final FacetIndex index = new FacetIndex();
+
+    record Book(String language, Integer year, UUID publisher, Set<UUID> categories) {}
+
+    @Test
+    void countsMatchBruteForce() {
+        for (int i = 0; i < 5_000; i++) put(UUID.randomUUID());
+        checkRandomFilters(300);
+    }
+
+    @Test
+    void countsStayCorrectAfterReplacingAndRemovingBooks() {
+        for (int i = 0; i < 5_000; i++) put(UUID.randomUUID());
+        List<UUID> ids = new ArrayList<>(catalog.keySet());
+        Collections.shuffle(ids, random);
+        for (UUID id : ids.subList(0, 1_500)) {
+            assertThat(index.remove(id)).isTrue();
+            catalog.remove(id);
+        }
+        for (UUID id : ids.subList(1_500, 2_500)) put(id);
+        // new books reuse the freed doc numbers
+        for (int i = 0; i < 1_000; i++) put(UUID.randomUUID());
+
+        assertThat(index.remove(ids.get(0))).isFalse();
+        assertThat(index.size()).isEqualTo(catalog.size());
+        checkRandomFilters(300);
+    }
+
+    @Test
+    void aFacetsOwnSelectionDoesNotNarrowItsCounts() {
+        for (int i = 0; i < 2_000; i++) put(UUID.randomUUID());
+        BookFilter filter = new BookFilter(Set.of("en"), null, null, null, null);
+
+        FacetIndex.Counts counts = index.count(filter, 100);
+
+        assertThat(asMap(counts.languages())).isEqualTo(expected(new BookFilter(null, null, null, null, null), Book::language, 0));
+        assertThat(asMap(counts.languages())).containsKeys("de", "fr");
+        assertThat(counts.total()).isEqualTo(catalog.values().stream().filter(b -> "en".equals(b.language())).count());
+    }
+
+    @Test
+    void limitKeepsTheLargestValues() {
+        for (int i = 0; i < 2_000; i++) put(UUID.randomUUID());
+        BookFilter none = new BookFilter(null, null, null, null, null);
+
+        List<FacetIndex.ValueCount<UUID>> top = index.count(none, 5).publishers();
+
+        Map<Object, Long> all = expected(none, Book::publisher, 2);
+        List<Long> largest = all.values().stream().sorted(Comparator.reverseOrder()).limit(5).toList();
+        assertThat(top).extracting(FacetIndex.ValueCount::count).containsExactlyElementsOf(largest);
+        assertThat(top).allSatisfy(c -> assertThat(all.get(c.value())).isEqualTo(c.count()));
+    }
+
+    private void checkRandomFilters(int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            BookFilter filter = randomFilter();
+            FacetIndex.Counts counts = index.count(filter, Integer.MAX_VALUE);
+
+            assertThat(counts.total()).as("total for %s", filter)
+                    .isEqualTo(catalog.values().stream().filter(b -> matches(b, filter, -1)).count());
+            assertThat(asMap(counts.languages())).as("languages for %s", filter).isEqualTo(expected(filter, Book::language, 0));
+            assertThat(asMap(counts.years())).as("years for %s", filter).isEqualTo(expected(filter, Book::year, 1));
+            assertThat(asMap(counts.publishers())).as("publishers for %s", filter).isEqualTo(expected(filter, Book::publisher, 2));
+            assertThat(asMap(counts.categories())).as("categories for %s", filter).isEqualTo(expectedCategories(filter));
+            assertThat(counts.years()).extracting(FacetIndex.ValueCount::value).isSorted();
+        }
+    }
+
+    /** Counts of {@code value} over the books matching every facet of {@code filter} except {@code facet}. */
+    private Map<Object, Long> expected(BookFilter filter, Function<Book, Object> value, int facet) {
+        return catalog.values().stream()
+                .filter(b -> matches(b, filter, facet) && value.apply(b) != null)
+                .collect(Collectors.groupingBy(value, Collectors.counting()));
+    }
+
+    private Map<Object, Long> expectedCategories(BookFilter filter) {
+        Map<Object, Long> out = new HashMap<>();
+        for (Book b : catalog.values()) {
+            if (!matches(b, filter, 3)) continue;
+            for (UUID c : b.categories()) out.merge(c, 1L, Long::sum);
+        }
+        return out;
+    }
+
+    private static boolean matches(Book b, BookFilter f, int skip) {
+        if (skip != 0 && !f.languages().isEmpty() && (b.language() == null || !f.languages().contains(b.language()))) return false;
+        if (skip != 1 && f.hasYearRange() && (b.year() == null || !f.matchesYear(b.year()))) return false;
+        if (skip != 2 && !f.publisherIds().isEmpty() && (b.publisher() == null || !f.publisherIds().contains(b.publisher()))) return false;
+        if (skip != 3 && !f.categoryIds().isEmpty() && Collections.disjoint(f.categoryIds(), b.categories())) return false;
+        return true;
+    }
+
+    private BookFilter randomFilter() {
+        Set<String> languages = random.nextInt(3) == 0 ? pick(LANGUAGES, 1 + random.nextInt(3)) : null;
+        Integer from = null;
+        Integer to = null;
+        if (random.nextInt(3) == 0) {
+            from = 1900 + random.nextInt(120);
+            to = random.nextBoolean() ? from + random.nextInt(5) : from + random.nextInt(120);
+        }
+        Set<UUID> publisherIds = random.nextInt(3) == 0 ? pick(skewed(publishers), 1 + random.nextInt(4)) : null;
+        Set<UUID> categoryIds = random.nextInt(3) == 0 ? pick(skewed(categories), 1 + random.nextInt(3)) : null;
+        return new BookFilter(languages, from, to, publisherIds, categoryIds);
+    }
+
+    private void put(UUID id) {
+        String language = random.nextInt(20) == 0 ? null : LANGUAGES.get(skewedIndex(LANGUAGES.size()));
+        Integer year = random.nextInt(25) == 0 ? null : 1900 + random.nextInt(120);
+        UUID publisher = random.nextInt(10) == 0 ? null : publishers.get(skewedIndex(publishers.size()));
+        Set<UUID> cats = new HashSet<>();
+        for (int n = random.nextInt(4); n > 0; n--) cats.add(categories.get(skewedIndex(categories.size())));
+        Book book = new Book(language, year, publisher, cats);
+        catalog.put(id, book);
+        index.put(id, language, year, publisher, cats);
+    }
+
+    /** Mostly the first few values, so some sets are dense and the tail is sparse. */
+    private int skewedIndex(int size) {
+        double u = random.nextDouble();
+        return Math.min(size - 1, (int) (size * u * u * u));
+    }
+
+    private <T> List<T> skewed(List<T> values) {
+        return random.nextBoolean() ? values.subList(0, 4) : values;
+    }
+
+    private <T> Set<T> pick(List<T> values, int n) {
+        Set<T> out = new HashSet<>();
+        while (out.size() < Math.min(n, values.size())) out.add(values.get(random.nextInt(values.size())));
+        return out;
+    }
+
+    private static <V> Map<Object, Long> asMap(List<FacetIndex.ValueCount<V>> counts) {
+        Map<Object, Long> out = new HashMap<>();
+        for (FacetIndex.ValueCount<V> c : counts) out.put(c.value(), c.count());
+        return out;
+    }
+
+    private static List<UUID> ids(int n) {
+        List<UUID> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) out.add(UUID.randomUUID());
+        return out;
+    }
+}
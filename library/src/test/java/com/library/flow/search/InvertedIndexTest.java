@@ -0,0 +1,150 @@
+package com.library.flow.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    @Test
+    void postingsRoundTripThroughVarints() {
+        int[] docs = {0, 1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152, 268_435_455, Integer.MAX_VALUE - 1};
+        int[] tfs = {1, 127, 128, 300, 16_384, 1, 2_097_152, 5, 1 << 28, 1};
+        InvertedIndex.Postings postings = new InvertedIndex.Postings();
+        for (int i = 0; i < docs.length; i++) postings.add(docs[i], tfs[i]);
+        postings.trim();
+
+        InvertedIndex.Cursor cursor = new InvertedIndex.Cursor(postings);
+        for (int i = 0; i < docs.length; i++) {
+            assertThat(cursor.next()).isTrue();
+            assertThat(cursor.doc).isEqualTo(docs[i]);
+            assertThat(cursor.tf).isEqualTo(tfs[i]);
+        }
+        assertThat(cursor.next()).isFalse();
+        assertThat(cursor.doc).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        InvertedIndex index = new InvertedIndex();
+        UUID war = put(index, "war and peace");
+        UUID peace = put(index, "peace treaty");
+        put(index, "war games");
+
+        assertThat(ids(index.search(List.of("war", "peace"), null, 10, 10))).containsExactly(war);
+        assertThat(ids(index.search(List.of("peace"), null, 10, 10))).containsExactlyInAnyOrder(war, peace);
+        assertThat(index.search(List.of("war", "missing"), null, 10, 10)).isEqualTo(InvertedIndex.Result.EMPTY);
+    }
+
+    @Test
+    void prefixMatchesItsExpansionsAndCombinesWithExactTerms() {
+        InvertedIndex index = new InvertedIndex();
+        UUID dune = put(index, "dune messiah");
+        UUID dungeon = put(index, "dungeon master");
+        UUID master = put(index, "master and margarita");
+
+        assertThat(ids(index.search(List.of(), "dun", 10, 10))).containsExactlyInAnyOrder(dune, dungeon);
+        assertThat(ids(index.search(List.of("master"), "dun", 10, 10))).containsExactly(dungeon);
+        assertThat(ids(index.search(List.of("master"), "marg", 10, 10))).containsExactly(master);
+        assertThat(index.search(List.of(), "xyz", 10, 10).total()).isZero();
+    }
+
+    @Test
+    void prefixUsesTheMostFrequentExpansions() {
+        InvertedIndex index = new InvertedIndex();
+        List<UUID> common = new ArrayList<>();
+        for (int i = 0; i < 5; i++) common.add(put(index, "castle"));
+        UUID rare = put(index, "cast");
+
+        assertThat(ids(index.search(List.of(), "cas", 1, 10))).containsExactlyInAnyOrderElementsOf(common);
+        assertThat(ids(index.search(List.of(), "cas", 2, 10))).contains(rare);
+    }
+
+    @Test
+    void hitsComeBestFirstAndAreCutAtTheLimit() {
+        InvertedIndex index = new InvertedIndex();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Map<String, Integer> tf = new HashMap<>();
+            tf.put("dragon", 1 + random.nextInt(20));
+            tf.put("filler" + random.nextInt(50), 1 + random.nextInt(30));
+            index.put(UUID.randomUUID(), tf);
+        }
+
+        InvertedIndex.Result all = index.search(List.of("dragon"), null, 10, 1_000);
+        InvertedIndex.Result top = index.search(List.of("dragon"), null, 10, 25);
+
+        assertThat(all.total()).isEqualTo(500);
+        assertThat(top.total()).isEqualTo(500);
+        assertThat(all.hits()).extracting(InvertedIndex.Hit::score).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(top.hits()).hasSize(25);
+        assertThat(top.hits()).extracting(InvertedIndex.Hit::score)
+                .containsExactlyElementsOf(all.hits().subList(0, 25).stream().map(InvertedIndex.Hit::score).toList());
+    }
+
+    @Test
+    void higherTermFrequencyRanksFirst() {
+        InvertedIndex index = new InvertedIndex();
+        UUID once = UUID.randomUUID();
+        UUID often = UUID.randomUUID();
+        index.put(once, Map.of("whale", 1, "sea", 3));
+        index.put(often, Map.of("whale", 3, "sea", 1));
+
+        assertThat(ids(index.search(List.of("whale"), null, 10, 10))).containsExactly(often, once);
+    }
+
+    @Test
+    void replacedAndRemovedBooksStayGoneAcrossCompaction() {
+        InvertedIndex index = new InvertedIndex();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) ids.add(put(index, "book common n" + i));
+        for (int i = 0; i < 1_000; i++) index.remove(ids.get(i));
+        for (int i = 1_000; i < 1_500; i++) index.put(ids.get(i), terms("renamed common"));
+
+        assertThat(index.size()).isEqualTo(2_000);
+        assertThat(index.compactIfNeeded()).isTrue();
+        assertThat(index.compactIfNeeded()).isFalse();
+
+        assertThat(index.size()).isEqualTo(2_000);
+        assertThat(index.search(List.of("common"), null, 10, 10).total()).isEqualTo(2_000);
+        assertThat(index.search(List.of("book"), null, 10, 10).total()).isEqualTo(1_500);
+        assertThat(ids(index.search(List.of("renamed"), null, 10, 1_000))).containsExactlyInAnyOrderElementsOf(ids.subList(1_000, 1_500));
+        assertThat(index.search(List.of("n10"), null, 10, 10).total()).isZero();
+        assertThat(index.search(List.of("n1200"), null, 10, 10).total()).isZero();
+        assertThat(ids(index.search(List.of("n2999"), null, 10, 10))).containsExactly(ids.get(2_999));
+        // terms only the removed books had are dropped with them
+        assertThat(index.termCount()).isEqualTo(3 + 1_500);
+
+        UUID added = put(index, "book after compaction");
+        assertThat(ids(index.search(List.of("book", "compaction"), null, 10, 10))).containsExactly(added);
+    }
+
+    @Test
+    void fewDeletionsDoNotCompact() {
+        InvertedIndex index = new InvertedIndex();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) ids.add(put(index, "title " + i));
+        for (int i = 0; i < 2_000; i++) index.remove(ids.get(i));
+
+        assertThat(index.compactIfNeeded()).isFalse();
+        assertThat(index.search(List.of("title"), null, 10, 10).total()).isEqualTo(8_000);
+    }
+
+    private static UUID put(InvertedIndex index, String text) {
+        UUID id = UUID.randomUUID();
+        index.put(id, terms(text));
+        return id;
+    }
+
+    private static Map<String, Integer> terms(String text) {
+        Map<String, Integer> tf = new HashMap<>();
+        for (String t : TextAnalyzer.terms(text)) tf.merge(t, 1, Integer::sum);
+        return tf;
+    }
+
+    private static List<UUID> ids(InvertedIndex.Result result) {
+        return result.hits().stream().map(InvertedIndex.Hit::id).toList();
+    }
+}
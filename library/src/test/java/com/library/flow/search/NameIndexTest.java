@@ -0,0 +1,167 @@
+package com.library.flow.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameIndexTest {
+
+    @Test
+    void misspelledSurnameFindsTheFullName() {
+        NameIndex index = new NameIndex();
+        UUID dostoevsky = put(index, "Fyodor Dostoevsky");
+        put(index, "Leo Tolstoy");
+        put(index, "Anton Chekhov");
+
+        List<NameIndex.Match> matches = index.search("Dostoyevsky", 10, 100);
+
+        assertThat(matches).extracting(NameIndex.Match::id).containsExactly(dostoevsky);
+        assertThat(matches.get(0).name()).isEqualTo("Fyodor Dostoevsky");
+        assertThat(matches.get(0).distance()).isEqualTo(1);
+    }
+
+    @Test
+    void adjacentTranspositionIsOneEdit() {
+        assertThat(NameIndex.boundedDistance("tolstoy", "tolsoty", 3)).isEqualTo(1);
+        assertThat(NameIndex.boundedDistance("ab", "ba", 1)).isEqualTo(1);
+        assertThat(NameIndex.boundedDistance("chekhov", "hcekohv", 3)).isEqualTo(2);
+
+        NameIndex index = new NameIndex();
+        UUID tolstoy = put(index, "Leo Tolstoy");
+        assertThat(index.search("Tolsoty", 10, 100)).singleElement()
+                .satisfies(m -> {
+                    assertThat(m.id()).isEqualTo(tolstoy);
+                    assertThat(m.distance()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void lengthDifferenceAtTheBandEdge() {
+        assertThat(NameIndex.boundedDistance("abc", "abcde", 2)).isEqualTo(2);
+        assertThat(NameIndex.boundedDistance("abcde", "abc", 2)).isEqualTo(2);
+        assertThat(NameIndex.boundedDistance("xabc", "abcyz", 2)).isEqualTo(3);
+        assertThat(NameIndex.boundedDistance("abc", "abcdef", 2)).isEqualTo(3);
+        assertThat(NameIndex.boundedDistance("", "ab", 2)).isEqualTo(2);
+        assertThat(NameIndex.boundedDistance("ab", "", 1)).isEqualTo(2);
+        assertThat(NameIndex.boundedDistance("kitten", "kitten", 0)).isZero();
+        assertThat(NameIndex.boundedDistance("kitten", "sitten", 0)).isEqualTo(1);
+    }
+
+    /** The banded, early-exit version must agree with the full table wherever the result is within the bound. */
+    @Test
+    void boundedDistanceAgreesWithTheFullTable() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20_000; round++) {
+            String a = randomWord(random, random.nextInt(9));
+            String b = mutate(random, a);
+            int max = random.nextInt(4);
+            int exact = osa(a, b);
+
+            assertThat(NameIndex.boundedDistance(a, b, max))
+                    .as("distance(%s, %s) with max %d", a, b, max)
+                    .isEqualTo(Math.min(exact, max + 1));
+        }
+    }
+
+    @Test
+    void queryMatchesARunOfConsecutiveWords() {
+        NameIndex index = new NameIndex();
+        UUID marquez = put(index, "Gabriel Garcia Marquez");
+        put(index, "Garcia Lorca");
+
+        assertThat(index.search("Garcia Marques", 10, 100)).extracting(NameIndex.Match::id).containsExactly(marquez);
+        assertThat(index.search("Gabriel Garcia", 10, 100)).extracting(NameIndex.Match::distance).containsExactly(0);
+        // the words must be adjacent in the name
+        assertThat(index.search("Gabriel Marquez", 10, 100)).isEmpty();
+    }
+
+    @Test
+    void closestFirstThenNearestLength() {
+        NameIndex index = new NameIndex();
+        put(index, "Mann");
+        put(index, "Manna");
+        put(index, "Man");
+
+        assertThat(index.search("Mann", 10, 100)).extracting(NameIndex.Match::name).containsExactly("Mann", "Man", "Manna");
+    }
+
+    @Test
+    void shortQueriesMustMatchExactly() {
+        NameIndex index = new NameIndex();
+        put(index, "Oz");
+        put(index, "Ox");
+
+        assertThat(index.search("oz", 10, 100)).extracting(NameIndex.Match::name).containsExactly("Oz");
+    }
+
+    @Test
+    void renamedAndRemovedNamesAreGoneAfterCompaction() {
+        NameIndex index = new NameIndex();
+        UUID[] ids = new UUID[3_000];
+        for (int i = 0; i < ids.length; i++) ids[i] = put(index, "Author Number" + i);
+        for (int i = 0; i < 1_000; i++) index.remove(ids[i]);
+        for (int i = 1_000; i < 1_200; i++) index.put(ids[i], "Renamed Writer" + i);
+
+        assertThat(index.compactIfNeeded()).isTrue();
+
+        assertThat(index.size()).isEqualTo(2_000);
+        assertThat(index.search("Number10", 10, 100)).extracting(NameIndex.Match::id).doesNotContain(ids[10]);
+        assertThat(index.search("Number1100", 10, 100)).extracting(NameIndex.Match::id).doesNotContain(ids[1_100]);
+        assertThat(index.search("Writer1100", 10, 100)).extracting(NameIndex.Match::id).first().isEqualTo(ids[1_100]);
+        assertThat(index.search("Number2999", 10, 100)).extracting(NameIndex.Match::id).first().isEqualTo(ids[2_999]);
+    }
+
+    private static UUID put(NameIndex index, String name) {
+        UUID id = UUID.randomUUID();
+        index.put(id, name);
+        return id;
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(4)));
+        return sb.toString();
+    }
+
+    /** A few random inserts, deletes, substitutions and swaps, so most pairs are close. */
+    private static String mutate(Random random, String word) {
+        StringBuilder sb = new StringBuilder(word);
+        for (int n = random.nextInt(5); n > 0; n--) {
+            int i = sb.isEmpty() ? 0 : random.nextInt(sb.length());
+            switch (random.nextInt(4)) {
+                case 0 -> sb.insert(i, (char) ('a' + random.nextInt(4)));
+                case 1 -> { if (!sb.isEmpty()) sb.deleteCharAt(i); }
+                case 2 -> { if (!sb.isEmpty()) sb.setCharAt(i, (char) ('a' + random.nextInt(4))); }
+                default -> {
+                    if (i + 1 < sb.length()) {
+                        char c = sb.charAt(i);
+                        sb.setCharAt(i, sb.charAt(i + 1));
+                        sb.setCharAt(i + 1, c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Optimal string alignment distance over the full table. */
+    private static int osa(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
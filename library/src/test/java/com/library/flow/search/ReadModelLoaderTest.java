@@ -0,0 +1,69 @@
+package com.library.flow.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadModelLoaderTest {
+
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+    private ReadModelLoader loader;
+
+    @AfterEach
+    void shutdown() {
+        if (loader != null) loader.shutdown();
+    }
+
+    @Test
+    void changesBeforeStartAreDroppedAndLaterOnesRunInOrder() throws Exception {
+        loader = new ReadModelLoader("test-loader", true);
+        loader.submit(() -> ran.add("early"));
+        loader.afterCommit(() -> ran.add("early commit"));
+
+        loader.start(() -> ran.add("load a"), () -> ran.add("load b"));
+        loader.submit(() -> ran.add("update"));
+        loader.afterCommit(() -> ran.add("commit"));
+        drain();
+
+        assertThat(ran).containsExactly("load a", "load b", "update", "commit");
+    }
+
+    @Test
+    void disabledModelNeverQueues() throws Exception {
+        loader = new ReadModelLoader("test-loader", false);
+        loader.start(() -> ran.add("load"));
+        loader.submit(() -> ran.add("update"));
+
+        Thread.sleep(50);
+        assertThat(ran).isEmpty();
+    }
+
+    @Test
+    void inBatchesSlicesWithoutGapsOrOverlap() {
+        List<UUID> ids = IntStream.range(0, 2 * ReadModelLoader.RELOAD_BATCH + 7).mapToObj(i -> UUID.randomUUID()).toList();
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        List<UUID> seen = new CopyOnWriteArrayList<>();
+
+        ReadModelLoader.inBatches(ids, batch -> {
+            sizes.add(batch.size());
+            seen.addAll(batch);
+        });
+
+        assertThat(sizes).containsExactly(ReadModelLoader.RELOAD_BATCH, ReadModelLoader.RELOAD_BATCH, 7);
+        assertThat(seen).isEqualTo(ids);
+    }
+
+    private void drain() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        loader.submit(done::countDown);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.flow.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextAnalyzerTest {
+
+    @Test
+    void isbnHyphensBetweenDigitsAreFolded() {
+        assertThat(TextAnalyzer.terms("978-0-14-044913-6")).containsExactly("9780140449136");
+        assertThat(TextAnalyzer.terms("ISBN 0-306-40615-2")).containsExactly("isbn", "0306406152");
+    }
+
+    @Test
+    void otherHyphensSplit() {
+        assertThat(TextAnalyzer.terms("Jean-Paul Sartre")).containsExactly("jean", "paul", "sartre");
+        assertThat(TextAnalyzer.terms("Catch-22")).containsExactly("catch", "22");
+        assertThat(TextAnalyzer.terms("1984- a novel")).containsExactly("1984", "novel");
+    }
+
+    @Test
+    void accentsAndCaseAreFolded() {
+        assertThat(TextAnalyzer.terms("Les Misérables")).containsExactly("les", "miserables");
+        assertThat(TextAnalyzer.terms("ÉMILE Zola")).containsExactly("emile", "zola");
+    }
+
+    @Test
+    void stopWordsAreDroppedFromTermsButKeptInWords() {
+        assertThat(TextAnalyzer.terms("The Lord of the Rings")).containsExactly("lord", "rings");
+        assertThat(TextAnalyzer.words("The Lord of the Rings")).containsExactly("the", "lord", "of", "the", "rings");
+    }
+
+    @Test
+    void longTermsAreCut() {
+        String term = "x".repeat(TextAnalyzer.MAX_TERM_LENGTH + 10);
+
+        assertThat(TextAnalyzer.terms(term)).containsExactly("x".repeat(TextAnalyzer.MAX_TERM_LENGTH));
+    }
+
+    @Test
+    void emptyInputHasNoTerms() {
+        assertThat(TextAnalyzer.terms(null)).isEmpty();
+        assertThat(TextAnalyzer.terms("")).isEmpty();
+        assertThat(TextAnalyzer.terms(" -- , ")).isEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.flow.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BookChangeFeedTest {
+
+    private static final int THRESHOLD = 10;
+
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    private final BookChangeFeed feed = new BookChangeFeed(bus, THRESHOLD);
+    private final List<Object> seen = new ArrayList<>();
+
+    {
+        feed.register(new BookChangeListener() {
+            @Override
+            public void booksChanged(Collection<UUID> bookIds) {
+                seen.add(List.copyOf(bookIds));
+            }
+
+            @Override
+            public void reset() {
+                seen.add("reset");
+            }
+        });
+    }
+
+    @Test
+    void changesUpToTheThresholdAreSentAsIds() {
+        List<UUID> ids = ids(THRESHOLD);
+
+        feed.booksChanged(ids);
+
+        verify(bus).publish(BookChangeFeed.TOPIC, ids);
+        verify(bus, never()).publishClear(anyString());
+        assertThat(seen).containsExactly(ids);
+    }
+
+    @Test
+    void largerChangesBecomeOneClearAndAReset() {
+        feed.booksChanged(ids(THRESHOLD + 1));
+
+        verify(bus).publishClear(BookChangeFeed.TOPIC);
+        verify(bus, never()).publish(anyString(), any());
+        assertThat(seen).containsExactly("reset");
+    }
+
+    private static List<UUID> ids(int n) {
+        return IntStream.range(0, n).mapToObj(i -> UUID.randomUUID()).toList();
+    }
+}
@@ -0,0 +1,144 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.BookImportReport;
+import com.library.flow.common.dto.ImportRowError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs imports against the database with chunks of three rows, so one input covers a committed
+ * chunk, a rolled back chunk and a trailing partial chunk.
+ */
+@SpringBootTest(properties = "library.import.chunkSize=3")
+class BookImportServiceTest {
+
+    @Autowired private BookImportService importService;
+    @Autowired private BookExportService exportService;
+    @Autowired private JdbcTemplate jdbc;
+
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+    private final UUID categoryId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("insert into category(id, name, version) values (?, ?, 0)", categoryId, "Import " + tag);
+        jdbc.update("insert into book(id, title, isbn, publication_year, language, created_at, total_copies, available_copies, version) " +
+                "values (?, ?, ?, 2000, 'en', now(), 1, 1, 0)", UUID.randomUUID(), "Existing " + tag, isbn(0));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        String books = "select id from book where title like '%" + tag + "'";
+        jdbc.update("delete from book_author where book_id in (" + books + ")");
+        jdbc.update("delete from book_category where book_id in (" + books + ")");
+        jdbc.update("delete from book where title like ?", "%" + tag);
+        jdbc.update("delete from author where name like ?", "%" + tag);
+        jdbc.update("delete from publisher where name like ?", "%" + tag);
+        jdbc.update("delete from category where id = ?", categoryId);
+    }
+
+    @Test
+    void reportCountsEveryRowOnce() throws Exception {
+        String csv = String.join("\n",
+                "\uFEFFtitle,isbn,publicationYear,language,totalCopies,publisher,authors,categoryIds",
+                row("A", isbn(1), "en", "2", "Press " + tag, "Ann " + tag + "|Bob " + tag, categoryId.toString()),
+                row("Dup", isbn(0), "en", "1", "", "", ""),
+                row("B", isbn(2), "en", "1", "", "Ann " + tag, ""),
+                // second chunk: the unknown category is a row error, the oversized language rolls the chunk back
+                row("Lost category", isbn(3), "en", "1", "", "", UUID.randomUUID().toString()),
+                row("Too long", isbn(4), "x".repeat(300), "1", "", "", ""),
+                row("Rolled back", isbn(5), "en", "1", "Gone " + tag, "", ""),
+                row("C", isbn(6), "en", "1", "", "", ""),
+                row("No year", "", "en", "1", "", "", "").replace(",2001,", ",,"));
+
+        BookImportReport report = importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.rowsRead()).isEqualTo(8);
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.failed()).isEqualTo(5);
+        assertThat(report.errorsTruncated()).isFalse();
+        assertThat(report.errors()).extracting(ImportRowError::row).containsExactlyInAnyOrder(2L, 4L, 5L, 6L, 8L);
+        assertThat(report.errors()).extracting(ImportRowError::message).contains(
+                "duplicate isbn " + isbn(0),
+                "chunk rejected by database",
+                "Publication year is required");
+        assertThat(report.errors()).filteredOn(e -> e.row() == 4)
+                .singleElement().extracting(ImportRowError::message).asString().startsWith("unknown category id ");
+
+        assertThat(titles()).containsExactlyInAnyOrder("A " + tag, "B " + tag, "C " + tag, "Existing " + tag);
+        assertThat(jdbc.queryForObject("select count(*) from book_author ba join book b on b.id = ba.book_id where b.title like ?",
+                Long.class, "%" + tag)).isEqualTo(3);
+        assertThat(jdbc.queryForList("select b.title from book_category bc join book b on b.id = bc.book_id where bc.category_id = ?",
+                String.class, categoryId)).containsExactly("A " + tag);
+        // the publisher created in the rolled back chunk is gone with it
+        assertThat(jdbc.queryForList("select name from publisher where name like ?", String.class, "%" + tag))
+                .containsExactly("Press " + tag);
+    }
+
+    @Test
+    void ndjsonRowsUseTheSameReport() throws Exception {
+        String ndjson = String.join("\n",
+                "{\"title\":\"J " + tag + "\",\"publicationYear\":1999,\"language\":\"en\",\"totalCopies\":1}",
+                "not json",
+                "",
+                "{\"title\":\"K " + tag + "\",\"publicationYear\":1999,\"language\":\"en\",\"totalCopies\":1,\"categoryIds\":[\"" + categoryId + "\"]}");
+
+        BookImportReport report = importService.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.rowsRead()).isEqualTo(3);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors()).containsExactly(new ImportRowError(2, "malformed JSON"));
+    }
+
+    @Test
+    void csvExportImportsAgain() throws Exception {
+        Instant since = Instant.now().minusSeconds(1);
+        String csv = String.join("\n",
+                "title,isbn,publicationYear,language,totalCopies,publisher,authors,categoryIds",
+                row("Round, trip", isbn(1), "en", "2", "Press " + tag, "Ann " + tag + "|Bob " + tag, categoryId.toString()));
+        assertThat(importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).imported()).isEqualTo(1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(out, true, since);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        String exported = lines[0] + "\n" + Arrays.stream(lines).filter(l -> l.contains(isbn(1))).findFirst().orElseThrow();
+        jdbc.update("delete from book_author where book_id in (select id from book where isbn = ?)", isbn(1));
+        jdbc.update("delete from book_category where book_id in (select id from book where isbn = ?)", isbn(1));
+        jdbc.update("delete from book where isbn = ?", isbn(1));
+
+        BookImportReport report = importService.importCsv(new ByteArrayInputStream(exported.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).isEmpty();
+        assertThat(jdbc.queryForList("select b.title from book_category bc join book b on b.id = bc.book_id where bc.category_id = ?",
+                String.class, categoryId)).containsExactly("Round, trip " + tag);
+        assertThat(jdbc.queryForObject("select count(*) from book_author ba join book b on b.id = ba.book_id where b.isbn = ?",
+                Long.class, isbn(1))).isEqualTo(2);
+    }
+
+    private String row(String title, String isbn, String language, String copies, String publisher, String authors, String categories) {
+        return String.join(",", "\"" + title + " " + tag + "\"", isbn, "2001", language, copies, publisher, authors, categories);
+    }
+
+    private String isbn(int n) {
+        return tag + "-" + n;
+    }
+
+    private List<String> titles() {
+        return jdbc.queryForList("select title from book where title like ?", String.class, "%" + tag);
+    }
+}
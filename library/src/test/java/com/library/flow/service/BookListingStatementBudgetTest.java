@@ -0,0 +1,116 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.entity.Author;
+import com.library.flow.entity.Book;
+import com.library.flow.entity.Category;
+import com.library.flow.entity.Publisher;
+import com.library.flow.repository.AuthorRepository;
+import com.library.flow.repository.BookRepository;
+import com.library.flow.repository.CategoryRepository;
+import com.library.flow.repository.PublisherRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookListingStatementBudgetTest {
+
+    /** id page + count + books with publisher + authors + categories */
+    private static final int PAGE_BUDGET = 5;
+    /** id slice + books with publisher + authors + categories */
+    private static final int SCROLL_BUDGET = 4;
+
+    @Autowired private BookService bookService;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private AuthorRepository authorRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private PublisherRepository publisherRepository;
+    @Autowired private EntityManagerFactory emf;
+
+    private final List<Book> books = new ArrayList<>();
+    private final List<Author> authors = new ArrayList<>();
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Publisher> publishers = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < 4; i++) {
+            authors.add(authorRepository.save(Author.builder().name("Author " + i + " " + run).build()));
+            categories.add(categoryRepository.save(Category.builder().name("Category " + i).build()));
+            publishers.add(publisherRepository.save(Publisher.builder().name("Publisher " + i + " " + run).build()));
+        }
+        for (int i = 0; i < 120; i++) {
+            Book b = new Book();
+            b.setTitle("000 Budget " + i);
+            b.setCreatedAt(Instant.now());
+            b.setTotalCopies(1);
+            b.setAvailableCopies(1);
+            b.setPublisher(publishers.get(i % 4));
+            b.setAuthors(Set.of(authors.get(i % 4), authors.get((i + 1) % 4)));
+            b.setCategories(Set.of(categories.get(i % 4), categories.get((i + 2) % 4)));
+            books.add(b);
+        }
+        bookRepository.saveAll(books);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        bookRepository.deleteAll(books);
+        authorRepository.deleteAll(authors);
+        categoryRepository.deleteAll(categories);
+        publisherRepository.deleteAll(publishers);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 50, 100})
+    void listingPageUsesConstantStatementCount(int size) {
+        Statistics stats = statistics();
+        stats.clear();
+
+        Page<BookListItem> page = bookService.findAll(PageRequest.of(0, size, Sort.by("title")));
+
+        assertThat(page.getContent()).hasSize(size);
+        assertThat(page.getContent()).allSatisfy(item -> {
+            assertThat(item.authors()).isNotEmpty();
+            assertThat(item.categories()).isNotEmpty();
+            assertThat(item.publisher()).isNotNull();
+        });
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_BUDGET);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100})
+    void scrollPageUsesConstantStatementCount(int size) {
+        Statistics stats = statistics();
+        stats.clear();
+
+        bookService.scroll(null, size, "createdAt");
+
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(SCROLL_BUDGET);
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
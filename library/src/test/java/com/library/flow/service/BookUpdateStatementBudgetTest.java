@@ -0,0 +1,116 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.UpdateBookRequest;
+import com.library.flow.entity.Author;
+import com.library.flow.entity.Book;
+import com.library.flow.entity.Category;
+import com.library.flow.entity.Publisher;
+import com.library.flow.repository.AuthorRepository;
+import com.library.flow.repository.BookRepository;
+import com.library.flow.repository.CategoryRepository;
+import com.library.flow.repository.PublisherRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookUpdateStatementBudgetTest {
+
+    /** book with publisher + its authors + its categories */
+    private static final int UNCHANGED_BUDGET = 3;
+    /** the above + new author + one join row deleted + one inserted + version bump */
+    private static final int ONE_SWAP_BUDGET = UNCHANGED_BUDGET + 4;
+
+    @Autowired private BookService bookService;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private AuthorRepository authorRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private PublisherRepository publisherRepository;
+    @Autowired private EntityManagerFactory emf;
+
+    private final List<Author> authors = new ArrayList<>();
+    private final List<Category> categories = new ArrayList<>();
+    private Publisher publisher;
+    private Book book;
+
+    @BeforeEach
+    void seed() {
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            authors.add(authorRepository.save(Author.builder().name("Author " + i + " " + run).build()));
+            categories.add(categoryRepository.save(Category.builder().name("Category " + i).build()));
+        }
+        publisher = publisherRepository.save(Publisher.builder().name("Publisher " + run).build());
+        Book b = new Book();
+        b.setTitle("000 Update budget");
+        b.setCreatedAt(Instant.now());
+        b.setTotalCopies(1);
+        b.setAvailableCopies(1);
+        b.setPublisher(publisher);
+        b.setAuthors(Set.of(authors.get(0), authors.get(1)));
+        b.setCategories(Set.of(categories.get(0), categories.get(1)));
+        book = bookRepository.save(b);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        bookRepository.deleteById(book.getId());
+        authorRepository.deleteAll(authors);
+        categoryRepository.deleteAll(categories);
+        publisherRepository.delete(publisher);
+    }
+
+    @Test
+    void unchangedRelationsWriteNothing() {
+        Statistics stats = statistics();
+        stats.clear();
+
+        bookService.updateBook(book.getId(), request(authors.get(0), authors.get(1)), null);
+
+        assertThat(stats.getCollectionRecreateCount()).isZero();
+        assertThat(stats.getCollectionRemoveCount()).isZero();
+        assertThat(stats.getCollectionUpdateCount()).isZero();
+        assertThat(stats.getEntityUpdateCount()).isZero();
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(UNCHANGED_BUDGET);
+    }
+
+    @Test
+    void swappingOneAuthorWritesOnlyThatRow() {
+        Statistics stats = statistics();
+        stats.clear();
+
+        bookService.updateBook(book.getId(), request(authors.get(0), authors.get(2)), null);
+
+        assertThat(stats.getCollectionRecreateCount()).isZero();
+        assertThat(stats.getCollectionRemoveCount()).isZero();
+        assertThat(stats.getCollectionUpdateCount()).isEqualTo(1);
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(ONE_SWAP_BUDGET);
+        assertThat(bookRepository.findIdsByAuthorId(authors.get(2).getId())).containsExactly(book.getId());
+        assertThat(bookRepository.findIdsByAuthorId(authors.get(1).getId())).isEmpty();
+    }
+
+    private UpdateBookRequest request(Author first, Author second) {
+        return new UpdateBookRequest(null, null, null, null, null, null, null, null, publisher.getId(),
+                Set.of(first.getId(), second.getId()),
+                Set.of(categories.get(0).getId(), categories.get(1).getId()));
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,128 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.CreateBorrowRequest;
+import com.library.flow.common.error.custom.NotFoundException;
+import com.library.flow.entity.Book;
+import com.library.flow.entity.BorrowBook;
+import com.library.flow.entity.Member;
+import com.library.flow.repository.BookRepository;
+import com.library.flow.repository.BorrowRepository;
+import com.library.flow.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The launch-day race of {@link BorrowServiceConcurrencyTest}, sent through the coalescer so the
+ * requests are committed in batches. The window is wide enough that batches really form, and the
+ * batch size small enough that full batches are flushed early as well.
+ */
+@SpringBootTest(properties = {
+        "library.borrowCoalescing.enabled=true",
+        "library.borrowCoalescing.windowMillis=20",
+        "library.borrowCoalescing.maxBatchSize=16"
+})
+class BorrowCoalescerConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int COPIES = 40;
+    private static final int UNKNOWN_MEMBERS = 5;
+
+    @Autowired private BorrowCoalescer coalescer;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private BorrowRepository borrowRepository;
+
+    private final List<UUID> memberIds = new ArrayList<>();
+    private UUID bookId;
+
+    @AfterEach
+    void cleanUp() {
+        borrowRepository.deleteAll(loans());
+        memberRepository.deleteAllById(memberIds);
+        bookRepository.deleteById(bookId);
+    }
+
+    @Test
+    void coalescedBorrowsNeverOversellAndFailOneByOne() throws Exception {
+        Book book = new Book();
+        book.setTitle("Coalesced Launch " + UUID.randomUUID());
+        book.setCreatedAt(Instant.now());
+        book.setTotalCopies(COPIES);
+        book.setAvailableCopies(COPIES);
+        bookRepository.save(book);
+        bookId = book.getId();
+
+        for (int i = 0; i < THREADS; i++) {
+            Member m = new Member();
+            m.setFullName("Queued reader " + i);
+            m.setCreatedAt(Instant.now());
+            memberIds.add(memberRepository.save(m).getId());
+        }
+        List<UUID> callers = new ArrayList<>(memberIds);
+        for (int i = 0; i < UNKNOWN_MEMBERS; i++) callers.add(UUID.randomUUID());
+        Collections.shuffle(callers, new Random(3));
+
+        Instant dueAt = Instant.now().plus(7, ChronoUnit.DAYS);
+        ExecutorService pool = Executors.newFixedThreadPool(callers.size());
+        CountDownLatch start = new CountDownLatch(1);
+        Map<UUID, Object> results = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID memberId : callers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    results.put(memberId, coalescer.borrow(new CreateBorrowRequest(memberId, bookId, dueAt)));
+                } catch (RuntimeException ex) {
+                    results.put(memberId, ex);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(2, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        Map<UUID, UUID> granted = new HashMap<>();
+        List<RuntimeException> outOfCopies = new ArrayList<>();
+        List<RuntimeException> unknown = new ArrayList<>();
+        results.forEach((memberId, result) -> {
+            if (result instanceof UUID transactionId) granted.put(memberId, transactionId);
+            else if (result instanceof NotFoundException ex) unknown.add(ex);
+            else outOfCopies.add((RuntimeException) result);
+        });
+
+        assertThat(results).hasSize(callers.size());
+        assertThat(granted).hasSize(COPIES);
+        assertThat(Set.copyOf(granted.values())).hasSize(COPIES);
+        assertThat(memberIds).containsAll(granted.keySet());
+        assertThat(unknown).hasSize(UNKNOWN_MEMBERS);
+        assertThat(outOfCopies).hasSize(THREADS - COPIES)
+                .allSatisfy(ex -> assertThat(ex).isInstanceOf(IllegalStateException.class)
+                        .hasMessage("no copies available for this book"));
+
+        assertThat(bookRepository.findById(bookId).orElseThrow().getAvailableCopies()).isZero();
+        List<BorrowBook> loans = loans();
+        assertThat(loans).extracting(BorrowBook::getId).containsExactlyInAnyOrderElementsOf(granted.values());
+        assertThat(loans).extracting(t -> t.getMember().getId()).containsExactlyInAnyOrderElementsOf(granted.keySet());
+        // one timestamp per committed batch
+        assertThat(loans.stream().map(BorrowBook::getBorrowedAt).distinct().count()).isLessThan(COPIES);
+        // the refused callers got their loan slots back
+        assertThat(memberRepository.findAllById(memberIds).stream().mapToInt(Member::getOpenLoanCount).sum())
+                .isEqualTo(COPIES);
+    }
+
+    private List<BorrowBook> loans() {
+        return borrowRepository.findAll().stream()
+                .filter(t -> t.getBook().getId().equals(bookId))
+                .toList();
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.CheckoutItemResult;
+import com.library.flow.common.dto.CheckoutRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BorrowServiceCheckoutTest {
+
+    @Autowired private BorrowService borrowService;
+    @Autowired private JdbcTemplate jdbc;
+
+    @Value("${library.maxOpenLoansPerMember:5}")
+    private int maxOpenLoans;
+
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+    private final List<UUID> books = new ArrayList<>();
+    private final UUID memberId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("insert into member(id, full_name, created_at, open_loan_count) values (?, ?, now(), ?)",
+                memberId, "Checkout " + tag, maxOpenLoans - 1);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("delete from borrow_book where member_id = ?", memberId);
+        jdbc.update("delete from member where id = ?", memberId);
+        for (UUID id : books) jdbc.update("delete from book where id = ?", id);
+    }
+
+    @Test
+    void bookWithoutCopiesDoesNotTakeTheLastSlot() {
+        UUID none = book(0);
+        UUID first = book(1);
+        UUID second = book(1);
+
+        List<CheckoutItemResult> results = borrowService.checkout(new CheckoutRequest(memberId, List.of(none, first, second), null));
+
+        assertThat(results).extracting(CheckoutItemResult::bookId).containsExactly(none, first, second);
+        assertThat(results.get(0).error()).isEqualTo("no copies available for this book");
+        assertThat(results.get(1).success()).isTrue();
+        assertThat(results.get(2).error()).isEqualTo("member reached max open borrows");
+
+        assertThat(available(first)).isZero();
+        assertThat(available(second)).as("the copy reserved beyond the free slots is given back").isEqualTo(1);
+        assertThat(jdbc.queryForObject("select open_loan_count from member where id = ?", Integer.class, memberId))
+                .isEqualTo(maxOpenLoans);
+        assertThat(jdbc.queryForList("select book_id from borrow_book where member_id = ?", UUID.class, memberId))
+                .containsExactly(first);
+    }
+
+    @Test
+    void memberWithoutFreeSlotsReservesNothing() {
+        jdbc.update("update member set open_loan_count = ? where id = ?", maxOpenLoans, memberId);
+        UUID id = book(1);
+
+        List<CheckoutItemResult> results = borrowService.checkout(new CheckoutRequest(memberId, List.of(id), null));
+
+        assertThat(results).singleElement().extracting(CheckoutItemResult::error).isEqualTo("member reached max open borrows");
+        assertThat(available(id)).isEqualTo(1);
+    }
+
+    private UUID book(int copies) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("insert into book(id, title, publication_year, language, created_at, total_copies, available_copies, version) " +
+                "values (?, ?, 2000, 'en', now(), 1, ?, 0)", id, "Cart " + books.size() + " " + tag, copies);
+        books.add(id);
+        return id;
+    }
+
+    private int available(UUID bookId) {
+        return jdbc.queryForObject("select available_copies from book where id = ?", Integer.class, bookId);
+    }
+}
@@ -0,0 +1,91 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.CreateBorrowRequest;
+import com.library.flow.entity.Book;
+import com.library.flow.entity.Member;
+import com.library.flow.repository.BookRepository;
+import com.library.flow.repository.BorrowRepository;
+import com.library.flow.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BorrowServiceConcurrencyTest {
+
+    private static final int THREADS = 300;
+    private static final int COPIES = 40;
+
+    @Autowired private BorrowService borrowService;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private MemberRepository memberRepository;
+    @Autowired private BorrowRepository borrowRepository;
+
+    private final List<UUID> memberIds = new ArrayList<>();
+    private UUID bookId;
+
+    @AfterEach
+    void cleanUp() {
+        borrowRepository.deleteAll(borrowRepository.findAll().stream()
+                .filter(t -> t.getBook().getId().equals(bookId))
+                .toList());
+        memberRepository.deleteAllById(memberIds);
+        bookRepository.deleteById(bookId);
+    }
+
+    @Test
+    void concurrentBorrowsNeverOversellOneBook() throws Exception {
+        Book book = new Book();
+        book.setTitle("Launch Day " + UUID.randomUUID());
+        book.setCreatedAt(Instant.now());
+        book.setTotalCopies(COPIES);
+        book.setAvailableCopies(COPIES);
+        bookRepository.save(book);
+        bookId = book.getId();
+
+        for (int i = 0; i < THREADS; i++) {
+            Member m = new Member();
+            m.setFullName("Reader " + i);
+            m.setCreatedAt(Instant.now());
+            memberIds.add(memberRepository.save(m).getId());
+        }
+
+        Instant dueAt = Instant.now().plus(7, ChronoUnit.DAYS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (UUID memberId : memberIds) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    borrowService.borrow(new CreateBorrowRequest(memberId, bookId, dueAt));
+                    borrowed.incrementAndGet();
+                } catch (IllegalStateException ex) {
+                    rejected.incrementAndGet();
+                }
+                assertThat(bookRepository.findById(bookId).orElseThrow().getAvailableCopies()).isGreaterThanOrEqualTo(0);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(2, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        assertThat(borrowed.get()).isEqualTo(COPIES);
+        assertThat(rejected.get()).isEqualTo(THREADS - COPIES);
+        assertThat(bookRepository.findById(bookId).orElseThrow().getAvailableCopies()).isZero();
+    }
+}
@@ -0,0 +1,107 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.CreateAuthorRequest;
+import com.library.flow.common.dto.NamedRef;
+import com.library.flow.entity.Author;
+import com.library.flow.repository.AuthorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a second "instance" (its own cache manager and listener) next to the application context
+ * and checks that writes made through the services reach it through Postgres.
+ */
+@SpringBootTest
+class CacheInvalidationBusTest {
+
+    @Autowired private AuthorService authorService;
+    @Autowired private AuthorRepository authorRepository;
+    @Autowired private CacheInvalidationBus bus;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DataSourceProperties dataSourceProperties;
+    @Autowired private TransactionTemplate tx;
+
+    private CacheInvalidationBus otherNode;
+    private Cache otherAuthors;
+    private UUID authorId;
+
+    @BeforeEach
+    void startOtherNode() throws Exception {
+        CaffeineCacheManager manager = new CaffeineCacheManager(CatalogCache.AUTHORS);
+        otherAuthors = manager.getCache(CatalogCache.AUTHORS);
+        otherNode = new CacheInvalidationBus(manager, jdbcTemplate, dataSourceProperties,
+                new SimpleMeterRegistry(), true, 200, 100);
+        otherNode.start();
+        await(otherNode::isListening);
+        authorId = authorService.createAuthor(new CreateAuthorRequest("Bus Author " + UUID.randomUUID()));
+    }
+
+    @AfterEach
+    void stopOtherNode() {
+        otherNode.stop();
+        authorRepository.deleteById(authorId);
+    }
+
+    @Test
+    void committedUpdateEvictsOnOtherInstance() throws Exception {
+        otherAuthors.put(authorId, new NamedRef(authorId, "stale"));
+
+        Author changes = new Author();
+        changes.setName("Renamed " + UUID.randomUUID());
+        authorService.updateAuthorInfo(authorId, changes);
+
+        await(() -> otherAuthors.get(authorId) == null);
+    }
+
+    @Test
+    void rolledBackWriteIsNeverDelivered() throws Exception {
+        otherAuthors.put(authorId, new NamedRef(authorId, "cached"));
+
+        tx.executeWithoutResult(status -> {
+            bus.publish(CatalogCache.AUTHORS, List.of(authorId));
+            status.setRollbackOnly();
+        });
+        // a committed message sent afterwards arrives after the rolled back one would have
+        UUID marker = UUID.randomUUID();
+        otherAuthors.put(marker, new NamedRef(marker, "marker"));
+        bus.publish(CatalogCache.AUTHORS, List.of(marker));
+        await(() -> otherAuthors.get(marker) == null);
+
+        assertThat(otherAuthors.get(authorId)).isNotNull();
+    }
+
+    @Test
+    void reconnectClearsEverything() throws Exception {
+        otherAuthors.put(authorId, new NamedRef(authorId, "cached"));
+
+        jdbcTemplate.query("select pg_terminate_backend(pid) from pg_stat_activity " +
+                "where query = 'LISTEN " + CacheInvalidationBus.CHANNEL + "'", rs -> null);
+
+        await(() -> otherAuthors.get(authorId) == null);
+        await(otherNode::isListening);
+        await(bus::isListening);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.library.flow.service;
+
+import com.library.flow.common.dto.BookListItem;
+import com.library.flow.common.dto.CursorPage;
+import com.library.flow.entity.Category;
+import com.library.flow.repository.CategoryClosureRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Moves and deletes against the closure table, on the tree
+ * <pre>
+ *   root ── a ── b ── c
+ *      └─── d
+ * </pre>
+ * with one book in each category and one more filed under both b and c.
+ */
+@SpringBootTest
+class CategoryServiceTest {
+
+    @Autowired private CategoryService categoryService;
+    @Autowired private BookService bookService;
+    @Autowired private CategoryClosureRepository closure;
+    @Autowired private JdbcTemplate jdbc;
+
+    private final String tag = UUID.randomUUID().toString().substring(0, 8);
+    private final List<UUID> categories = new ArrayList<>();
+    private final Map<String, UUID> books = new HashMap<>();
+    private UUID root, a, b, c, d;
+
+    @BeforeEach
+    void setUp() {
+        root = create("root", null);
+        a = create("a", root);
+        b = create("b", a);
+        c = create("c", b);
+        d = create("d", root);
+        book("root", root);
+        book("a", a);
+        book("b", b);
+        book("c", c);
+        book("d", d);
+        book("bc", b, c);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("delete from book_category where book_id in (select id from book where title like ?)", "%" + tag);
+        jdbc.update("delete from book where title like ?", "%" + tag);
+        for (UUID id : categories) jdbc.update("delete from category_closure where ancestor_id = ? or descendant_id = ?", id, id);
+        for (UUID id : categories) jdbc.update("update category set parent_id = null where id = ?", id);
+        for (UUID id : categories) jdbc.update("delete from category where id = ?", id);
+    }
+
+    @Test
+    void newCategoriesAreLinkedToEveryAncestor() {
+        assertThat(depth(root, c)).isEqualTo(3);
+        assertThat(depth(a, c)).isEqualTo(2);
+        assertThat(depth(c, c)).isZero();
+        assertThat(closure.isAncestor(d, c)).isFalse();
+    }
+
+    @Test
+    void movingUnderADescendantIsRefused() {
+        assertThatThrownBy(() -> move(a, c))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("descendant");
+        assertThatThrownBy(() -> move(a, b)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> move(a, a)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(depth(root, c)).isEqualTo(3);
+        assertThat(closure.isAncestor(a, c)).isTrue();
+    }
+
+    @Test
+    void movedSubtreeKeepsItsShapeUnderTheNewParent() {
+        move(b, d);
+
+        assertThat(closure.isAncestor(d, b)).isTrue();
+        assertThat(closure.isAncestor(d, c)).isTrue();
+        assertThat(closure.isAncestor(a, b)).isFalse();
+        assertThat(closure.isAncestor(a, c)).isFalse();
+        assertThat(depth(root, c)).isEqualTo(3);
+        assertThat(depth(d, c)).isEqualTo(2);
+        assertThat(depth(b, c)).isEqualTo(1);
+        assertThat(titles(d)).containsExactlyInAnyOrder("d", "b", "c", "bc");
+        assertThat(titles(a)).containsExactly("a");
+    }
+
+    @Test
+    void movedToRootTheSubtreeLosesItsOldAncestors() {
+        move(b, null);
+
+        assertThat(closure.isAncestor(root, b)).isFalse();
+        assertThat(closure.isAncestor(root, c)).isFalse();
+        assertThat(jdbc.queryForList("select ancestor_id from category_closure where descendant_id = ?", UUID.class, c))
+                .containsExactlyInAnyOrder(b, c);
+        assertThat(depth(b, c)).isEqualTo(1);
+        assertThat(titles(root)).containsExactlyInAnyOrder("root", "a", "d");
+    }
+
+    @Test
+    void deletingALeafRemovesItsLinksAndParentsWithChildrenStay() {
+        UUID leaf = create("leaf", c);
+        assertThat(depth(root, leaf)).isEqualTo(4);
+
+        categoryService.deleteById(leaf);
+
+        assertThat(jdbc.queryForObject("select count(*) from category_closure where ancestor_id = ? or descendant_id = ?",
+                Integer.class, leaf, leaf)).isZero();
+        assertThatThrownBy(() -> categoryService.deleteById(b)).isInstanceOf(IllegalStateException.class);
+        assertThat(closure.isAncestor(b, c)).isTrue();
+    }
+
+    @Test
+    void subtreeListingReturnsNestedBooksOnceInIdOrderAcrossPages() {
+        List<UUID> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<BookListItem> page = bookService.findByCategoryTree(a, cursor, 2);
+            page.content().forEach(book -> ids.add(book.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(ids).containsExactlyInAnyOrder(books.get("a"), books.get("b"), books.get("c"), books.get("bc"));
+        // UUID.compareTo is signed; Postgres orders uuids as unsigned bytes, as their text does
+        assertThat(ids).isSortedAccordingTo(Comparator.comparing(UUID::toString));
+    }
+
+    private UUID create(String name, UUID parentId) {
+        Category category = new Category();
+        category.setName(name + " " + tag);
+        if (parentId != null) category.setParent(Category.builder().id(parentId).build());
+        UUID id = categoryService.createCategory(category);
+        categories.add(0, id);
+        return id;
+    }
+
+    private void move(UUID id, UUID parentId) {
+        Category changes = new Category();
+        changes.setName(jdbc.queryForObject("select name from category where id = ?", String.class, id));
+        if (parentId != null) changes.setParent(Category.builder().id(parentId).build());
+        categoryService.updateCategory(id, changes);
+    }
+
+    private void book(String title, UUID... categoryIds) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("insert into book(id, title, publication_year, language, created_at, total_copies, available_copies, version) " +
+                "values (?, ?, 2000, 'en', now(), 1, 1, 0)", id, title + " " + tag);
+        for (UUID categoryId : categoryIds) {
+            jdbc.update("insert into book_category(book_id, category_id) values (?, ?)", id, categoryId);
+        }
+        books.put(title, id);
+    }
+
+    private List<String> titles(UUID categoryId) {
+        return bookService.findByCategoryTree(categoryId, null, 50).content().stream()
+                .map(book -> book.title().substring(0, book.title().length() - tag.length() - 1))
+                .toList();
+    }
+
+    private int depth(UUID ancestor, UUID descendant) {
+        return jdbc.queryForObject("select depth from category_closure where ancestor_id = ? and descendant_id = ?",
+                Integer.class, ancestor, descendant);
+    }
+}
@@ -0,0 +1,67 @@
+package com.library.flow.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void plainFieldsAndLineEndings() throws IOException {
+        assertThat(readAll("a,b,c\nd,e,f\r\ng,h,i\rj,k,l")).containsExactly(
+                List.of("a", "b", "c"),
+                List.of("d", "e", "f"),
+                List.of("g", "h", "i"),
+                List.of("j", "k", "l"));
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndNewlines() throws IOException {
+        assertThat(readAll("\"Smith, John\",\"say \"\"hi\"\"\",\"two\nlines\"\nnext,row,here\n")).containsExactly(
+                List.of("Smith, John", "say \"hi\"", "two\nlines"),
+                List.of("next", "row", "here"));
+    }
+
+    @Test
+    void emptyFieldsAreKept() throws IOException {
+        assertThat(readAll(",x,\n\"\",,\n")).containsExactly(
+                List.of("", "x", ""),
+                List.of("", "", ""));
+    }
+
+    @Test
+    void blankLinesAreSkipped() throws IOException {
+        assertThat(readAll("\n\r\na,b\n\n\nc,d\n\n")).containsExactly(
+                List.of("a", "b"),
+                List.of("c", "d"));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(new CsvRecordReader(new StringReader("")).next()).isNull();
+    }
+
+    @Test
+    void unterminatedQuoteFailsTheRecord() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("ok,row\n\"never closed,x\n"));
+
+        assertThat(reader.next()).containsExactly("ok", "row");
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessage("unterminated quoted field");
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) records.add(record);
+        return records;
+    }
+}